@@ -0,0 +1,79 @@
+package com.dsc.scheduler.aop;
+
+import com.dsc.scheduler.annotation.DcsScheduled;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockConfigurationTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the lock configuration of a run of a scheduled method, once the way
+ * each run used to (return type check, making the method accessible, merged
+ * annotation lookup, placeholder resolution and parsing of the durations) and
+ * once from the template resolved when the job is registered. Run with
+ * {@code -prof gc} to compare the allocations per run.
+ *
+ * @author typhoon
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LockConfigurationBenchmark {
+    private SpringLockConfigurationExtractor extractor;
+    private Job target;
+    private Method method;
+    private DcsScheduled scheduled;
+    private LockConfigurationTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        StandardEnvironment environment = new StandardEnvironment();
+        extractor = new SpringLockConfigurationExtractor(Duration.ofMinutes(10), Duration.ZERO,
+                environment::resolvePlaceholders, StringToDurationConverter.INSTANCE);
+        target = new Job();
+        method = Job.class.getMethod("run");
+        scheduled = AnnotatedElementUtils.getMergedAnnotation(method, DcsScheduled.class);
+        template = extractor.getLockConfigurationTemplate(target, method).orElseThrow(IllegalStateException::new);
+    }
+
+    @Benchmark
+    public LockConfiguration perRun() {
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isPrimitive() && !void.class.equals(returnType)) {
+            throw new LockingNotSupportedException("Can not lock method returning primitive value");
+        }
+        ReflectionUtils.makeAccessible(method);
+        return extractor.getLockConfiguration(scheduled, method, method.getParameters()).get();
+    }
+
+    @Benchmark
+    public LockConfiguration template() {
+        return template.newConfiguration();
+    }
+
+    public static class Job {
+        @DcsScheduled(fixedRate = 10, name = "benchmark-job", lockAtMostFor = "${benchmark.lock-at-most-for:30s}",
+                lockAtLeastFor = "PT1S")
+        public void run() {
+        }
+    }
+}
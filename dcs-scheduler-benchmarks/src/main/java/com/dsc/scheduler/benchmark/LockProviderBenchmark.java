@@ -0,0 +1,85 @@
+package com.dsc.scheduler.benchmark;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LockProvider#lock} followed by {@link SimpleLock#unlock} for
+ * every provider, with all benchmark threads contending for the same lock name.
+ * Throughput mode reports acquire attempts per millisecond, sample time mode
+ * reports the p50/p99 latency of a single attempt.
+ *
+ * @author typhoon
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LockProviderBenchmark {
+    private static final String LOCK_NAME = "benchmark-lock";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofSeconds(10);
+
+    @Param({"jdbc-h2", "jdbc-hsqldb", "jdbc-h2-autocommit", "jdbc-hsqldb-autocommit", "redis", "zookeeper"})
+    public String provider;
+
+    private LockProviderFixture fixture;
+    private LockProvider lockProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = LockProviderFixture.create(provider);
+        lockProvider = fixture.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean lockAndUnlock1Thread() {
+        return lockAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean lockAndUnlock8Threads() {
+        return lockAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(LockProviderFixture.MAX_THREADS)
+    public boolean lockAndUnlock64Threads() {
+        return lockAndUnlock();
+    }
+
+    private boolean lockAndUnlock() {
+        Optional<SimpleLock> lock = lockProvider.lock(
+                new LockConfiguration(ClockProvider.now(), LOCK_NAME, LOCK_AT_MOST_FOR, Duration.ZERO));
+        lock.ifPresent(SimpleLock::unlock);
+        return lock.isPresent();
+    }
+}
@@ -0,0 +1,178 @@
+package com.dsc.scheduler.benchmark;
+
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.provider.db.JdbcTemplateLockProvider;
+import com.dsc.scheduler.lock.provider.redis.RedisLockProvider;
+import com.dsc.scheduler.lock.provider.zk.ZookeeperCuratorLockProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * Local stand-in for a lock store. Starts the backing server in-process, hands
+ * out a {@link LockProvider} connected to it and tears everything down again.
+ *
+ * @author typhoon
+ **/
+public abstract class LockProviderFixture implements AutoCloseable {
+
+    /** Upper bound of concurrently locking benchmark threads, used to size client pools. */
+    static final int MAX_THREADS = 64;
+
+    static final String SHEDLOCK_DDL = "CREATE TABLE shedlock(name VARCHAR(64) NOT NULL, lock_until TIMESTAMP(3) NOT NULL, "
+            + "locked_at TIMESTAMP(3) NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name))";
+
+    public static LockProviderFixture create(String name) {
+        switch (name) {
+            case "jdbc-h2":
+                return new JdbcFixture("jdbc:h2:mem:shedlock;DB_CLOSE_DELAY=-1", false);
+            case "jdbc-hsqldb":
+                return new JdbcFixture("jdbc:hsqldb:mem:shedlock", false);
+            case "jdbc-h2-autocommit":
+                return new JdbcFixture("jdbc:h2:mem:shedlock;DB_CLOSE_DELAY=-1", true);
+            case "jdbc-hsqldb-autocommit":
+                return new JdbcFixture("jdbc:hsqldb:mem:shedlock", true);
+            case "redis":
+                return new RedisFixture();
+            case "zookeeper":
+                return new ZookeeperFixture();
+            default:
+                throw new IllegalArgumentException("Unknown lock provider fixture " + name);
+        }
+    }
+
+    public abstract LockProvider start() throws Exception;
+
+    /**
+     * Stops the backing server, failures are rethrown unchecked so that the fixture
+     * can be used in try-with-resources without a checked exception.
+     */
+    @Override
+    public abstract void close();
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static class JdbcFixture extends LockProviderFixture {
+        private final String jdbcUrl;
+        private final boolean autoCommit;
+        private HikariDataSource dataSource;
+
+        JdbcFixture(String jdbcUrl, boolean autoCommit) {
+            this.jdbcUrl = jdbcUrl;
+            this.autoCommit = autoCommit;
+        }
+
+        @Override
+        public LockProvider start() {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(jdbcUrl);
+            config.setUsername("sa");
+            config.setPassword("");
+            config.setMaximumPoolSize(MAX_THREADS);
+            dataSource = new HikariDataSource(config);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute(SHEDLOCK_DDL);
+            JdbcTemplateLockProvider.Configuration.Builder builder = JdbcTemplateLockProvider.Configuration.builder()
+                    .withJdbcTemplate(jdbcTemplate);
+            if (autoCommit) {
+                builder.usingAutoCommit();
+            }
+            return new JdbcTemplateLockProvider(builder.build());
+        }
+
+        HikariDataSource getDataSource() {
+            return dataSource;
+        }
+
+        @Override
+        public void close() {
+            if (dataSource != null) {
+                new JdbcTemplate(dataSource).execute("DROP TABLE shedlock");
+                dataSource.close();
+            }
+        }
+    }
+
+    static class RedisFixture extends LockProviderFixture {
+        private RedisServer redisServer;
+        private JedisConnectionFactory connectionFactory;
+
+        @Override
+        public LockProvider start() throws IOException {
+            int port = freePort();
+            redisServer = new RedisServer(port);
+            redisServer.start();
+
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(MAX_THREADS);
+            poolConfig.setMaxIdle(MAX_THREADS);
+            JedisClientConfiguration clientConfiguration = JedisClientConfiguration.builder()
+                    .usePooling()
+                    .poolConfig(poolConfig)
+                    .build();
+            connectionFactory = new JedisConnectionFactory(
+                    new RedisStandaloneConfiguration("localhost", port), clientConfiguration);
+            connectionFactory.afterPropertiesSet();
+            return new RedisLockProvider(connectionFactory);
+        }
+
+        @Override
+        public void close() {
+            if (connectionFactory != null) {
+                connectionFactory.destroy();
+            }
+            if (redisServer != null) {
+                try {
+                    redisServer.stop();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    static class ZookeeperFixture extends LockProviderFixture {
+        private TestingServer testingServer;
+        private CuratorFramework client;
+
+        @Override
+        public LockProvider start() throws Exception {
+            testingServer = new TestingServer(true);
+            client = CuratorFrameworkFactory.newClient(testingServer.getConnectString(), new RetryOneTime(100));
+            client.start();
+            client.blockUntilConnected();
+            return new ZookeeperCuratorLockProvider(client);
+        }
+
+        @Override
+        public void close() {
+            if (client != null) {
+                client.close();
+            }
+            if (testingServer != null) {
+                try {
+                    testingServer.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.dsc.scheduler.benchmark;
+
+import com.dsc.scheduler.config.DispatchingTaskScheduler;
+import com.dsc.scheduler.config.SchedulerConfig;
+import com.dsc.scheduler.config.TimingWheel;
+import com.dsc.scheduler.config.TriggerTimer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compares the timers firing the triggers of the jobs, the delay queue of a
+ * {@link ThreadPoolTaskScheduler} and the {@link TimingWheel}, with 10k, 50k and
+ * 100k jobs registered. Every job fires once a second like a cron job, spread over
+ * the second, and is scheduled again when it fires. The timers are created by
+ * {@link SchedulerConfig#triggerTimer} from the dcs.scheduler.timer property, like
+ * the timer of the application.
+ *
+ * <p>
+ * The benchmark method schedules and cancels a one-shot task from 4 threads at the
+ * same time, the cost of an insertion into a timer holding all the jobs. The trigger
+ * lateness (p50, p99, max) and the CPU used by the timer threads in each iteration
+ * are reported as the secondary results of {@link TimerStats}.
+ *
+ * @author typhoon
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class TriggerTimerBenchmark {
+    private static final long PERIOD_MILLIS = 1000;
+    /** Lateness histogram with one bucket per millisecond, the last one counts everything later. */
+    private static final int MAX_LATENESS_MILLIS = 2000;
+
+    @Param({SchedulerConfig.EXECUTOR_TIMER, SchedulerConfig.TIMING_WHEEL_TIMER})
+    public String timer;
+
+    @Param({"10000", "50000", "100000"})
+    public int jobs;
+
+    private TriggerTimer triggerTimer;
+    private volatile boolean running;
+    private volatile AtomicLongArray lateness;
+    private long timerCpuNanos;
+    private long iterationStartNanos;
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.singletonMap(SchedulerConfig.TIMER_PROPERTY, timer)));
+        triggerTimer = SchedulerConfig.triggerTimer(environment);
+        lateness = new AtomicLongArray(MAX_LATENESS_MILLIS + 1);
+        running = true;
+        long start = System.currentTimeMillis() + PERIOD_MILLIS;
+        for (int job = 0; job < jobs; job++) {
+            schedule(start + job * PERIOD_MILLIS / jobs);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running = false;
+        triggerTimer.shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        lateness = new AtomicLongArray(MAX_LATENESS_MILLIS + 1);
+        timerCpuNanos = timerCpuNanos();
+        iterationStartNanos = System.nanoTime();
+        reported.set(false);
+    }
+
+    /**
+     * Secondary results of an iteration. JMH sums the counters of all benchmark
+     * threads, so only the first thread ending the iteration reports them.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TimerStats {
+        public long latenessP50Millis;
+        public long latenessP99Millis;
+        public long latenessMaxMillis;
+        public double timerCpuPercent;
+
+        @TearDown(Level.Iteration)
+        public void report(TriggerTimerBenchmark benchmark) {
+            boolean first = benchmark.reported.compareAndSet(false, true);
+            latenessP50Millis = first ? benchmark.percentile(0.5) : 0;
+            latenessP99Millis = first ? benchmark.percentile(0.99) : 0;
+            latenessMaxMillis = first ? benchmark.percentile(1.0) : 0;
+            timerCpuPercent = first ? benchmark.timerCpuPercent() : 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean scheduleAndCancel(TimerStats stats) {
+        ScheduledFuture<?> future = triggerTimer.schedule(() -> {
+        }, new Date(System.currentTimeMillis() + 60_000));
+        return future.cancel(false);
+    }
+
+    private void schedule(long dueMillis) {
+        triggerTimer.schedule(() -> fire(dueMillis), new Date(dueMillis));
+    }
+
+    private void fire(long dueMillis) {
+        long late = Math.max(0, System.currentTimeMillis() - dueMillis);
+        lateness.incrementAndGet((int) Math.min(late, MAX_LATENESS_MILLIS));
+        if (running) {
+            schedule(dueMillis + PERIOD_MILLIS);
+        }
+    }
+
+    private long percentile(double fraction) {
+        AtomicLongArray histogram = lateness;
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            total += histogram.get(i);
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * fraction));
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private double timerCpuPercent() {
+        return 100.0 * (timerCpuNanos() - timerCpuNanos) / (System.nanoTime() - iterationStartNanos);
+    }
+
+    private static long timerCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(DispatchingTaskScheduler.TRIGGER_THREAD_NAME))
+                .mapToLong(thread -> Math.max(0, threads.getThreadCpuTime(thread.getId())))
+                .sum();
+    }
+}
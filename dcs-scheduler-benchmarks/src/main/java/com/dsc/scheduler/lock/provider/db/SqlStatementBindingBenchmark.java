@@ -0,0 +1,112 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds a lock configuration to the prepared update statement, once the way the
+ * named parameter statements used to be bound (SQL concatenated on every call,
+ * a parameter map, named parameter substitution) and once through the compiled
+ * {@link SqlStatement}. The statement is only bound, not executed, so the
+ * difference is not hidden behind the database. Run with {@code -prof gc} to
+ * compare the allocations per operation.
+ *
+ * @author typhoon
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SqlStatementBindingBenchmark {
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofSeconds(10);
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplateLockProvider.Configuration configuration;
+    private SqlStatementsSource statementsSource;
+    private ParsedSql parsedSql;
+    private SqlStatement compiled;
+    private PreparedStatement ps;
+    private LockConfiguration lockConfiguration;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:binding" + Thread.currentThread().getId() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS shedlock(name VARCHAR(64) NOT NULL, lock_until TIMESTAMP(3) NOT NULL, "
+                + "locked_at TIMESTAMP(3) NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name))");
+        configuration = JdbcTemplateLockProvider.Configuration.builder()
+                .withJdbcTemplate(jdbcTemplate)
+                .build();
+        statementsSource = SqlStatementsSource.create(configuration);
+        // NamedParameterJdbcTemplate caches the parsed SQL, only the substitution runs per call
+        parsedSql = NamedParameterUtils.parseSqlStatement(statementsSource.getUpdateStatement());
+        compiled = SqlStatement.compile(statementsSource.getUpdateStatement(), configuration);
+        Connection connection = dataSource.getConnection();
+        ps = connection.prepareStatement(compiled.getSql());
+        lockConfiguration = new LockConfiguration(ClockProvider.now(), "benchmark-lock", LOCK_AT_MOST_FOR, Duration.ZERO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        ps.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public PreparedStatement namedParameters(Blackhole blackhole) throws SQLException {
+        String sql = statementsSource.getUpdateStatement();
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", lockConfiguration.getName());
+        params.put("lockUntil", Timestamp.from(lockConfiguration.getLockAtMostUntil()));
+        params.put("now", Timestamp.from(ClockProvider.now()));
+        params.put("lockedBy", configuration.getLockedByValue());
+        params.put("unlockTime", Timestamp.from(lockConfiguration.getUnlockTime()));
+        MapSqlParameterSource paramSource = new MapSqlParameterSource(params);
+        String positionalSql = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+        Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+        blackhole.consume(sql);
+        blackhole.consume(positionalSql);
+        for (int i = 0; i < values.length; i++) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, values[i]);
+        }
+        return ps;
+    }
+
+    @Benchmark
+    public PreparedStatement compiledStatement() throws SQLException {
+        compiled.bind(ps, lockConfiguration);
+        return ps;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dsc.scheduler.support;
+
+import com.dsc.scheduler.lock.LockingTaskExecutor.TaskWithResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls a scheduled method the way each run used to, a task lambda created per
+ * run around {@link Method#invoke} with the {@link InvocationTargetException}
+ * unwrapped, and through the tasks of {@link ScheduledMethodInvoker} bound once:
+ * the class spun by LambdaMetafactory and the reflective fallback. Run with
+ * {@code -prof gc} to compare the allocations per call.
+ *
+ * @author typhoon
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ScheduledMethodInvokerBenchmark {
+    private Job target;
+    private Method method;
+    private TaskWithResult<Object> bound;
+    private TaskWithResult<Object> reflective;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        target = new Job();
+        method = Job.class.getMethod("run");
+        bound = ScheduledMethodInvoker.bind(target, method);
+        reflective = ScheduledMethodInvoker.reflective(target, method);
+    }
+
+    @Benchmark
+    public Object perRunReflection() throws Throwable {
+        TaskWithResult<Object> task = () -> {
+            try {
+                return method.invoke(target);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        };
+        return task.call();
+    }
+
+    @Benchmark
+    public Object boundReflection() throws Throwable {
+        return reflective.call();
+    }
+
+    @Benchmark
+    public Object metafactory() throws Throwable {
+        return bound.call();
+    }
+
+    public static class Job {
+        private long runs;
+
+        public void run() {
+            runs++;
+        }
+    }
+}
@@ -16,6 +16,7 @@ package com.dsc.scheduler;
 
 import com.dsc.scheduler.lock.LockConfiguration;
 import com.dsc.scheduler.lock.LockConfigurationExtractor;
+import com.dsc.scheduler.lock.LockConfigurationTemplate;
 
 import java.lang.reflect.Method;
 import java.util.Optional;
@@ -29,4 +30,17 @@ public interface ExtendedLockConfigurationExtractor extends LockConfigurationExt
      * @return optional
      */
     Optional<LockConfiguration> getLockConfiguration(Object object, Method method, Object[] parameterValues);
+
+    /** Resolves the lock configuration of a scheduled method once, when it is
+     * registered. The runs of the method only stamp the template with their start
+     * time, see {@link LockConfigurationTemplate#newConfiguration()}.
+     *
+     * @param object target
+     * @param method no-arg scheduled method
+     * @return optional, empty if the method is not locked
+     */
+    default Optional<LockConfigurationTemplate> getLockConfigurationTemplate(Object object, Method method) {
+        return getLockConfiguration(object, method, new Object[0]).map(lockConfiguration -> new LockConfigurationTemplate(
+                lockConfiguration.getName(), lockConfiguration.getLockAtMostFor(), lockConfiguration.getLockAtLeastFor()));
+    }
 }
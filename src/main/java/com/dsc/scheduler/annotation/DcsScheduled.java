@@ -48,6 +48,11 @@ public @interface DcsScheduled {
 	 */
 	String CRON_DISABLED = "-";
 
+	/**
+	 * Group of the jobs which do not name one: {@value}.
+	 */
+	String DEFAULT_GROUP = "default";
+
 
 	/**
 	 * A cron-like expression, extending the usual UN*X definition to include triggers
@@ -189,4 +194,30 @@ public @interface DcsScheduled {
 	 */
 	String lockAtLeastFor() default "";
 
+	/**
+	 * Group whose executor runs the job. Each group has its own pool of threads and
+	 * queue, sized by the dcs.scheduler.groups.&lt;group&gt;.pool-size and
+	 * dcs.scheduler.groups.&lt;group&gt;.queue-capacity properties, so slow jobs of one
+	 * group do not delay the jobs of the others. The queue is unbounded unless its
+	 * capacity is set, a run which finds a bounded queue full is skipped.
+	 * @return string
+	 */
+	String group() default DEFAULT_GROUP;
+
+	/**
+	 * Upper bound of the delay of the runs of this node, spreading the lock attempts
+	 * of the nodes instead of all of them hitting the lock store at the same instant.
+	 * Each node waits a fixed part of it derived from a hash of the hostname and the
+	 * lock name, see {@link com.dsc.scheduler.support.JitteredTrigger}. Empty uses
+	 * {@link EnableDcsScheduling#defaultLockJitter()}, 0 disables the jitter.
+	 *
+	 * <p>
+	 * Same format as {@link #lockAtMostFor()}. Should stay well below the period of
+	 * the job. The lock is held at least for the jitter, so that the last node still
+	 * finds it held: a shorter lockAtLeastFor is raised to the jitter, a jitter longer
+	 * than lockAtMostFor is rejected when the job is registered.
+	 * @return string
+	 */
+	String lockJitter() default "";
+
 }
@@ -17,17 +17,38 @@
 package com.dsc.scheduler.annotation;
 
 import com.dsc.scheduler.aop.DcsScheduledAnnotationBeanPostProcessor;
+import com.dsc.scheduler.aop.StringToDurationConverter;
 import com.dsc.scheduler.ExtendedLockConfigurationExtractor;
+import com.dsc.scheduler.config.DispatchingTaskScheduler;
+import com.dsc.scheduler.lock.AsyncLockProvider;
 import com.dsc.scheduler.lock.DefaultLockingTaskExecutor;
+import com.dsc.scheduler.lock.LockLeaseRenewer;
 import com.dsc.scheduler.lock.LockProvider;
 import com.dsc.scheduler.lock.LockingTaskExecutor;
+import com.dsc.scheduler.lock.provider.AsyncLockProviderAdapter;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.lock.provider.ConsistentHashLockProvider;
+import com.dsc.scheduler.lock.provider.LeaderElectionLockProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportAware;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Role;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.StringValueResolver;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
 
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * {@code @Configuration} class that registers a {@link ScheduledAnnotationBeanPostProcessor}
  * bean capable of processing Spring's @{@link DcsScheduled} annotation.
@@ -43,18 +64,185 @@ import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProc
  */
 @Configuration
 @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
-public class DcsSchedulingConfiguration {
+public class DcsSchedulingConfiguration implements ImportAware, EmbeddedValueResolverAware, EnvironmentAware {
+
+	/**
+	 * Number of threads of the {@link AsyncLockProviderAdapter}.
+	 */
+	public static final String ASYNC_LOCKING_POOL_SIZE_PROPERTY = "dcs.scheduler.async-locking.pool-size";
+
+	/**
+	 * Number of lock store calls waiting for a thread of the {@link AsyncLockProviderAdapter}.
+	 */
+	public static final String ASYNC_LOCKING_QUEUE_CAPACITY_PROPERTY = "dcs.scheduler.async-locking.queue-capacity";
+
+	private boolean renewLocks;
+
+	private EnableDcsScheduling.CoordinationMode coordinationMode = EnableDcsScheduling.CoordinationMode.LOCK;
+
+	private String leaderLeaseFor;
+
+	private String memberLeaseFor;
+
+	private boolean asyncLocking;
+
+	private String defaultLockJitter = "0";
+
+	private StringValueResolver resolver;
+
+	private Environment environment;
+
+	@Override
+	public void setImportMetadata(AnnotationMetadata importMetadata) {
+		AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+				importMetadata.getAnnotationAttributes(EnableDcsScheduling.class.getName(), false));
+		if (attributes != null) {
+			this.renewLocks = attributes.getBoolean("renewLocks");
+			this.coordinationMode = attributes.getEnum("coordinationMode");
+			this.leaderLeaseFor = attributes.getString("leaderLeaseFor");
+			this.memberLeaseFor = attributes.getString("memberLeaseFor");
+			this.asyncLocking = attributes.getBoolean("asyncLocking");
+			this.defaultLockJitter = attributes.getString("defaultLockJitter");
+		}
+	}
+
+	@Override
+	public void setEmbeddedValueResolver(StringValueResolver resolver) {
+		this.resolver = resolver;
+	}
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
 
 	@Bean(name = "internalDcsScheduledAnnotationProcessor")
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public DcsScheduledAnnotationBeanPostProcessor dcsScheduledAnnotationProcessor(@Lazy ExtendedLockConfigurationExtractor extendedLockConfigurationExtractor
 			,@Lazy LockingTaskExecutor lockingTaskExecutor) {
-		return new DcsScheduledAnnotationBeanPostProcessor(extendedLockConfigurationExtractor,lockingTaskExecutor);
+		DcsScheduledAnnotationBeanPostProcessor processor =
+				new DcsScheduledAnnotationBeanPostProcessor(extendedLockConfigurationExtractor,lockingTaskExecutor);
+		processor.setDefaultLockJitter(StringToDurationConverter.INSTANCE.convert(resolver.resolveStringValue(defaultLockJitter)));
+		return processor;
+	}
+
+	@Bean
+	public LockingTaskExecutor lockingTaskExecutor(@Lazy LockProvider lockProvider, @Lazy ClusterMembership clusterMembership,
+			ObjectProvider<LockProvider> lockProviders, ObjectProvider<TaskScheduler> taskSchedulers) {
+		LockProvider coordinated = coordinated(lockProvider, clusterMembership);
+		LockLeaseRenewer leaseRenewer = renewLocks ? lockLeaseRenewer() : null;
+		if (!asyncLocking) {
+			return new DefaultLockingTaskExecutor(coordinated, leaseRenewer, () -> {
+				TaskScheduler taskScheduler = taskSchedulers.getIfAvailable();
+				return taskScheduler != null ? taskExecutor(taskScheduler) : null;
+			});
+		}
+		return new DefaultLockingTaskExecutor(coordinated, leaseRenewer, asyncLockProvider(coordinated, lockProviders),
+				() -> taskExecutor(taskSchedulers.getObject()));
+	}
+
+	/**
+	 * Executor of the job of an acquired asynchronous lock, resolved in the scheduler
+	 * thread starting the lock attempt so that the job runs in its own group. A run
+	 * rejected by a saturated group releases the lock at once. Also releases the
+	 * locks of jobs whose Publisher or CompletionStage completes on another thread.
+	 */
+	private static Executor taskExecutor(TaskScheduler taskScheduler) {
+		if (taskScheduler instanceof DispatchingTaskScheduler) {
+			return ((DispatchingTaskScheduler) taskScheduler).currentGroupExecutor();
+		}
+		return task -> taskScheduler.schedule(task, Instant.now());
+	}
+
+	/**
+	 * Uses the lock provider itself when it is an {@link AsyncLockProvider}, an
+	 * {@link AsyncLockProviderAdapter} otherwise. Resolved on first use, the lazily
+	 * injected lock provider is a proxy which does not expose AsyncLockProvider.
+	 */
+	private AsyncLockProvider asyncLockProvider(LockProvider coordinated, ObjectProvider<LockProvider> lockProviders) {
+		AtomicReference<AsyncLockProvider> resolved = new AtomicReference<>();
+		return lockConfiguration -> {
+			AsyncLockProvider asyncLockProvider = resolved.get();
+			if (asyncLockProvider == null) {
+				LockProvider lockProvider = coordinationMode == EnableDcsScheduling.CoordinationMode.LOCK
+						? lockProviders.getObject() : coordinated;
+				asyncLockProvider = lockProvider instanceof AsyncLockProvider
+						? (AsyncLockProvider) lockProvider : asyncLockProviderAdapter(lockProvider);
+				resolved.set(asyncLockProvider);
+			}
+			return asyncLockProvider.lockAsync(lockConfiguration);
+		};
 	}
 
+	private LockProvider coordinated(LockProvider lockProvider, ClusterMembership clusterMembership) {
+		switch (coordinationMode) {
+			case LEADER:
+				return leaderElectionLockProvider(lockProvider);
+			case CONSISTENT_HASH:
+				return consistentHashLockProvider(lockProvider, clusterMembership);
+			case LOCK:
+			default:
+				return lockProvider;
+		}
+	}
+
+	/**
+	 * Only created when lock renewal is enabled, closed together with the context.
+	 *
+	 * @return LockLeaseRenewer
+	 */
 	@Bean
-	public LockingTaskExecutor lockingTaskExecutor(@Lazy LockProvider lockProvider) {
-		return new DefaultLockingTaskExecutor(lockProvider);
+	@Lazy
+	public LockLeaseRenewer lockLeaseRenewer() {
+		return new LockLeaseRenewer();
+	}
+
+	/**
+	 * Only created when asynchronous locking is enabled for a lock provider which
+	 * only supports blocking calls, closed together with the context. Not an
+	 * autowire candidate, so it does not compete with the {@link LockProvider} it wraps.
+	 * Sized by the {@value #ASYNC_LOCKING_POOL_SIZE_PROPERTY} and
+	 * {@value #ASYNC_LOCKING_QUEUE_CAPACITY_PROPERTY} properties.
+	 *
+	 * @param lockProvider blocking lock provider
+	 * @return AsyncLockProviderAdapter
+	 */
+	@Bean(autowireCandidate = false)
+	@Lazy
+	public AsyncLockProviderAdapter asyncLockProviderAdapter(LockProvider lockProvider) {
+		return new AsyncLockProviderAdapter(lockProvider,
+				environment.getProperty(ASYNC_LOCKING_POOL_SIZE_PROPERTY, Integer.class, AsyncLockProviderAdapter.DEFAULT_THREADS),
+				environment.getProperty(ASYNC_LOCKING_QUEUE_CAPACITY_PROPERTY, Integer.class,
+						AsyncLockProviderAdapter.DEFAULT_QUEUE_CAPACITY));
+	}
+
+	/**
+	 * Only created in {@link EnableDcsScheduling.CoordinationMode#LEADER} mode. Not an
+	 * autowire candidate, so it does not compete with the {@link LockProvider} it wraps.
+	 *
+	 * @param lockProvider lock provider used to elect the leader
+	 * @return LeaderElectionLockProvider
+	 */
+	@Bean(autowireCandidate = false)
+	@Lazy
+	public LeaderElectionLockProvider leaderElectionLockProvider(LockProvider lockProvider) {
+		return new LeaderElectionLockProvider(lockProvider,
+				StringToDurationConverter.INSTANCE.convert(resolver.resolveStringValue(leaderLeaseFor)));
+	}
+
+	/**
+	 * Only created in {@link EnableDcsScheduling.CoordinationMode#CONSISTENT_HASH} mode. Not an
+	 * autowire candidate, so it does not compete with the {@link LockProvider} it wraps.
+	 *
+	 * @param lockProvider lock provider used by the owner of a job
+	 * @param clusterMembership registry of the nodes
+	 * @return ConsistentHashLockProvider
+	 */
+	@Bean(autowireCandidate = false)
+	@Lazy
+	public ConsistentHashLockProvider consistentHashLockProvider(LockProvider lockProvider, ClusterMembership clusterMembership) {
+		return new ConsistentHashLockProvider(lockProvider, clusterMembership,
+				StringToDurationConverter.INSTANCE.convert(resolver.resolveStringValue(memberLeaseFor)));
 	}
 
 }
@@ -72,6 +72,32 @@ public @interface EnableDcsScheduling {
         ;
     }
 
+    /**
+     * 任务协调模式
+     *
+     **/
+    enum CoordinationMode {
+
+        /**
+         * Every node locks every job execution in the lock store
+         */
+        LOCK,
+
+        /**
+         * Nodes elect a single leader through one renewed lock, the leader runs all
+         * jobs without locking them in the lock store
+         */
+        LEADER,
+
+        /**
+         * Nodes register in the lock store and every job is owned by one of them
+         * through a consistent hash ring, only the owner locks it in the lock store
+         */
+        CONSISTENT_HASH,
+
+        ;
+    }
+
     /**
      * provider 模式
      *
@@ -105,6 +131,87 @@ public @interface EnableDcsScheduling {
      */
     String defaultLockAtLeastFor() default "PT0S";
 
+    /**
+     * Keep the locks of running tasks alive by extending them in the background
+     * each time a third of lockAtMostFor passes, see {@link com.dsc.scheduler.lock.LockLeaseRenewer}.
+     * Allows a short lockAtMostFor for long running tasks, so the lock of a node
+     * which died is taken over quickly.
+     * @return boolean
+     */
+    boolean renewLocks() default false;
+
+    /**
+     * How job executions are coordinated between the nodes, see {@link CoordinationMode}.
+     * @return mode
+     */
+    CoordinationMode coordinationMode() default CoordinationMode.LOCK;
+
+    /**
+     * Lease of the leader lock in {@link CoordinationMode#LEADER} mode, renewed
+     * every third of the lease. If the leader dies, another node takes over within
+     * this duration. Same format as {@link #defaultLockAtMostFor()}.
+     * @return string
+     */
+    String leaderLeaseFor() default "30s";
+
+    /**
+     * Registration lease of a node in {@link CoordinationMode#CONSISTENT_HASH} mode,
+     * refreshed every third of the lease. Jobs owned by a node which died are run
+     * by the other nodes once its registration expires. Same format as
+     * {@link #defaultLockAtMostFor()}.
+     * @return string
+     */
+    String memberLeaseFor() default "30s";
+
+    /**
+     * Size (1 to 4) of a connection pool kept by the {@link ProviderModel#DB} provider
+     * for the lock statements only, so that locking does not wait for connections
+     * of a busy application pool. The pool connects like the application
+     * DataSource, which must be a HikariCP pool, otherwise the lock statements stay
+     * on the application DataSource. 0 runs the lock statements on the application
+     * DataSource. Can be overridden by the dcs.scheduler.db.lock-pool-size property.
+     * @return int
+     */
+    int lockPoolSize() default 0;
+
+    /**
+     * Acquire and release the locks of the jobs without blocking the scheduler
+     * threads, see {@link com.dsc.scheduler.lock.AsyncLockProvider}. A slow lock
+     * store then does not delay the triggers of other jobs, a job runs on a
+     * scheduler thread once its lock is acquired. The scheduler considers a run
+     * finished when the lock attempt has been started, so runs of fixedDelay jobs
+     * are counted from the lock attempt instead of the end of the previous run.
+     * @return boolean
+     */
+    boolean asyncLocking() default false;
+
+    /**
+     * Run each job on its own virtual thread, the triggers fire on a small pool of
+     * platform threads, see {@link com.dsc.scheduler.config.DispatchingTaskScheduler}.
+     * Jobs waiting for the lock store or for I/O of their own then do not hold a
+     * scheduler thread. Needs Java 21 or later, the application fails to start on
+     * older versions. Can be overridden by the dcs.scheduler.virtual-threads property.
+     * @return boolean
+     */
+    boolean virtualThreads() default false;
+
+    /**
+     * Default of {@link DcsScheduled#lockJitter()}, off by default. Same format as
+     * {@link #defaultLockAtMostFor()}.
+     * @return string
+     */
+    String defaultLockJitter() default "0";
+
+    /**
+     * Align the clock used for the lock timestamps with the clock of the lock store,
+     * see {@link com.dsc.scheduler.lock.ClockOffsetEstimator}. The store time is
+     * sampled in the background every minute, so the nodes agree on the time even if
+     * their clocks drift apart. Can be overridden by the dcs.scheduler.sync-clock
+     * property, the interval by dcs.scheduler.sync-clock-interval.
+     * @return boolean
+     */
+    boolean syncClock() default false;
+
 //    /**
 //     * <p>
 //     * Indicate how advice should be applied.
@@ -19,9 +19,13 @@ package com.dsc.scheduler.aop;
 import com.dsc.scheduler.ExtendedLockConfigurationExtractor;
 import com.dsc.scheduler.annotation.DcsScheduled;
 import com.dsc.scheduler.annotation.DcsSchedules;
+import com.dsc.scheduler.lock.LockProvider;
 import com.dsc.scheduler.lock.LockingTaskExecutor;
+import com.dsc.scheduler.lock.provider.ProvisioningLockProvider;
 import com.dsc.scheduler.support.DcsScheduledMethodRunnable;
+import com.dsc.scheduler.support.JitteredTrigger;
 import com.dsc.scheduler.util.EnhanceAnnotationUtil;
+import com.dsc.scheduler.util.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.framework.AopInfrastructureBean;
@@ -59,6 +63,7 @@ import org.springframework.scheduling.config.FixedRateTask;
 import org.springframework.scheduling.config.ScheduledTask;
 import org.springframework.scheduling.config.ScheduledTaskHolder;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.config.TriggerTask;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.scheduling.support.ScheduledMethodRunnable;
 import org.springframework.util.Assert;
@@ -126,6 +131,8 @@ public class DcsScheduledAnnotationBeanPostProcessor
 
 	private LockingTaskExecutor lockingTaskExecutor;
 
+	private Duration defaultLockJitter = Duration.ZERO;
+
 	@Nullable
 	private Object scheduler;
 
@@ -145,6 +152,8 @@ public class DcsScheduledAnnotationBeanPostProcessor
 
 	private final Map<Object, Set<ScheduledTask>> scheduledTasks = new IdentityHashMap<>(16);
 
+	private final Set<String> lockNames = Collections.newSetFromMap(new ConcurrentHashMap<>(64));
+
 
 	/**
 	 * Create a default {@code ScheduledAnnotationBeanPostProcessor}.
@@ -193,6 +202,15 @@ public class DcsScheduledAnnotationBeanPostProcessor
 		this.scheduler = scheduler;
 	}
 
+	/**
+	 * Jitter of the jobs which do not set {@link DcsScheduled#lockJitter()}.
+	 *
+	 * @param defaultLockJitter upper bound of the delay, zero disables the jitter
+	 */
+	public void setDefaultLockJitter(Duration defaultLockJitter) {
+		this.defaultLockJitter = defaultLockJitter;
+	}
+
 	@Override
 	public void setEmbeddedValueResolver(StringValueResolver resolver) {
 		this.embeddedValueResolver = resolver;
@@ -325,9 +343,29 @@ public class DcsScheduledAnnotationBeanPostProcessor
 			}
 		}
 
+		provisionLockRecords();
 		this.registrar.afterPropertiesSet();
 	}
 
+	/**
+	 * Creates the lock records of all collected jobs at once, before the first job runs.
+	 * Only done when the {@link LockProvider} supports it, see {@link ProvisioningLockProvider}.
+	 */
+	private void provisionLockRecords() {
+		if (this.lockNames.isEmpty() || this.beanFactory == null) {
+			return;
+		}
+		LockProvider lockProvider = this.beanFactory.getBeanProvider(LockProvider.class).getIfUnique();
+		if (lockProvider instanceof ProvisioningLockProvider) {
+			try {
+				((ProvisioningLockProvider) lockProvider).provision(this.lockNames);
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Could not provision lock records, they are created on first execution instead", ex);
+			}
+		}
+	}
+
 	private <T> T resolveSchedulerBean(BeanFactory beanFactory, Class<T> schedulerType, boolean byName) {
 		if (byName) {
 			T scheduler = beanFactory.getBean(DEFAULT_TASK_SCHEDULER_BEAN_NAME, schedulerType);
@@ -400,17 +438,25 @@ public class DcsScheduledAnnotationBeanPostProcessor
 	 * @param scheduled the {@code @Scheduled} annotation
 	 * @param method the method that the annotation has been declared on
 	 * @param bean the target bean instance
-	 * @see #createRunnable(Object, Method,DcsScheduled)
+	 * @see #createRunnable(Object, Method, DcsScheduled, Duration)
 	 */
 	protected void processScheduled(DcsScheduled scheduled, Method method, Object bean) {
 		try {
-			Runnable runnable = createRunnable(bean, method,scheduled);
+			// Upper bound of the offset of the nodes, the lock is held at least as long
+			Duration lockJitter = lockJitter(scheduled);
+			Runnable runnable = createRunnable(bean, method, scheduled, lockJitter);
+			if (StringUtils.hasText(scheduled.name())) {
+				this.lockNames.add(scheduled.name());
+			}
 			boolean processedSchedule = false;
 			String errorMessage =
 					"Exactly one of the 'cron', 'fixedDelay(String)', or 'fixedRate(String)' attributes is required";
 
 			Set<ScheduledTask> tasks = new LinkedHashSet<>(4);
 
+			// Offset of this node, shifting the runs to spread the lock attempts of the nodes
+			long jitter = JitteredTrigger.offsetMillis(Utils.getHostname(), scheduled.name(), lockJitter.toMillis());
+
 			// Determine initial delay
 			long initialDelay = convertToMillis(scheduled.initialDelay(), scheduled.timeUnit());
 			String initialDelayString = scheduled.initialDelayString();
@@ -449,7 +495,14 @@ public class DcsScheduledAnnotationBeanPostProcessor
 						else {
 							timeZone = TimeZone.getDefault();
 						}
-						tasks.add(this.registrar.scheduleCronTask(new CronTask(runnable, new CronTrigger(cron, timeZone))));
+						CronTrigger trigger = new CronTrigger(cron, timeZone);
+						if (jitter > 0) {
+							tasks.add(this.registrar.scheduleTriggerTask(
+									new TriggerTask(runnable, new JitteredTrigger(trigger, jitter))));
+						}
+						else {
+							tasks.add(this.registrar.scheduleCronTask(new CronTask(runnable, trigger)));
+						}
 					}
 				}
 			}
@@ -458,6 +511,7 @@ public class DcsScheduledAnnotationBeanPostProcessor
 			if (initialDelay < 0) {
 				initialDelay = 0;
 			}
+			initialDelay += jitter;
 
 			// Check fixed delay
 			long fixedDelay = convertToMillis(scheduled.fixedDelay(), scheduled.timeUnit());
@@ -537,14 +591,33 @@ public class DcsScheduledAnnotationBeanPostProcessor
 	 * @see ScheduledMethodRunnable#ScheduledMethodRunnable(Object, Method)
 	 *
 	 * @param scheduled annotation
+	 * @param lockJitter upper bound of the delay of the runs, the least lock time of the runnable
 	 * @return runnable
 	 */
-	protected Runnable createRunnable(Object target, Method method,DcsScheduled scheduled) {
+	protected Runnable createRunnable(Object target, Method method, DcsScheduled scheduled, Duration lockJitter) {
 		String name = scheduled.name();
 		Assert.isTrue(method.getParameterCount() == 0, "Only no-arg methods may be annotated with @DcsScheduled");
 		Assert.isTrue(null != name && name.length() > 0, "parameter name can't be null with @DcsScheduled");
 		Method invocableMethod = AopUtils.selectInvocableMethod(method, target.getClass());
-		return new DcsScheduledMethodRunnable(target, invocableMethod,scheduled,extendedLockConfigurationExtractor,lockingTaskExecutor);
+		return new DcsScheduledMethodRunnable(target, invocableMethod,scheduled,extendedLockConfigurationExtractor,lockingTaskExecutor,lockJitter);
+	}
+
+	private Duration lockJitter(DcsScheduled scheduled) {
+		Duration maxJitter = this.defaultLockJitter;
+		String lockJitter = scheduled.lockJitter();
+		if (StringUtils.hasText(lockJitter)) {
+			if (this.embeddedValueResolver != null) {
+				lockJitter = this.embeddedValueResolver.resolveStringValue(lockJitter);
+			}
+			try {
+				maxJitter = StringToDurationConverter.INSTANCE.convert(lockJitter);
+			}
+			catch (RuntimeException ex) {
+				throw new IllegalArgumentException(
+						"Invalid lockJitter value \"" + lockJitter + "\" - cannot parse into duration");
+			}
+		}
+		return maxJitter;
 	}
 
 	private static long convertToMillis(long value, TimeUnit timeUnit) {
@@ -16,6 +16,7 @@ package com.dsc.scheduler.aop;
 import com.dsc.scheduler.annotation.DcsSchedulingConfiguration;
 import com.dsc.scheduler.annotation.EnableDcsScheduling;
 import com.dsc.scheduler.config.DBProviderConfig;
+import com.dsc.scheduler.config.GroupMetricsConfig;
 import com.dsc.scheduler.config.RedisProviderConfig;
 import com.dsc.scheduler.config.SchedulerConfig;
 import com.dsc.scheduler.config.ZkProviderConfig;
@@ -37,6 +38,7 @@ public class DcsSchedulerConfigurationSelector implements ImportSelector {
                     AutoProxyRegistrar.class.getName(),
                     LockConfigurationExtractorConfiguration.class.getName(),
                     SchedulerConfig.class.getName(),
+                    GroupMetricsConfig.class.getName(),
                     DBProviderConfig.class.getName(),
                     DcsSchedulingConfiguration.class.getName()
             };
@@ -45,6 +47,7 @@ public class DcsSchedulerConfigurationSelector implements ImportSelector {
                     AutoProxyRegistrar.class.getName(),
                     LockConfigurationExtractorConfiguration.class.getName(),
                     SchedulerConfig.class.getName(),
+                    GroupMetricsConfig.class.getName(),
                     RedisProviderConfig.class.getName(),
                     DcsSchedulingConfiguration.class.getName()
             };
@@ -53,6 +56,7 @@ public class DcsSchedulerConfigurationSelector implements ImportSelector {
                     AutoProxyRegistrar.class.getName(),
                     LockConfigurationExtractorConfiguration.class.getName(),
                     SchedulerConfig.class.getName(),
+                    GroupMetricsConfig.class.getName(),
                     ZkProviderConfig.class.getName(),
                     DcsSchedulingConfiguration.class.getName()
             };
@@ -49,9 +49,9 @@ import java.util.regex.Pattern;
  *         <p>
  *         Copied from org.springframework.boot.context.properties.bind.convert
  */
-class StringToDurationConverter implements Converter<String, Duration> {
+public class StringToDurationConverter implements Converter<String, Duration> {
 
-    static final StringToDurationConverter INSTANCE = new StringToDurationConverter();
+    public static final StringToDurationConverter INSTANCE = new StringToDurationConverter();
 
     private static final Pattern ISO8601 = Pattern.compile("^[\\+\\-]?P.*$");
 
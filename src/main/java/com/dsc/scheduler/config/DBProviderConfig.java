@@ -1,26 +1,155 @@
 package com.dsc.scheduler.config;
 
+import com.dsc.scheduler.annotation.EnableDcsScheduling;
 import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.lock.provider.db.JdbcTemplateClusterMembership;
 import com.dsc.scheduler.lock.provider.db.JdbcTemplateLockProvider;
+import com.dsc.scheduler.lock.provider.db.JdbcTemplateServerTimeSource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportAware;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
 
 /**
+ * The dedicated lock pool needs HikariCP and a Hikari application pool to copy the
+ * connection settings from, see {@link LockConnectionPool}. Otherwise the lock
+ * statements run on the application DataSource and a warning says why.
+ *
  * @author typhoon
  **/
 @Slf4j
-public class DBProviderConfig {
+public class DBProviderConfig implements ImportAware, BeanClassLoaderAware, DisposableBean {
+    /** Overrides {@link EnableDcsScheduling#lockPoolSize()}. */
+    public static final String LOCK_POOL_SIZE_PROPERTY = "dcs.scheduler.db.lock-pool-size";
+    /**
+     * Acquires MySQL locks in one statement, see
+     * {@link JdbcTemplateLockProvider.Configuration.Builder#usingMySqlUpsert()}.
+     */
+    public static final String MYSQL_UPSERT_PROPERTY = "dcs.scheduler.db.mysql-upsert";
+    private static final int MAX_LOCK_POOL_SIZE = 4;
+
+    @Autowired
+    private Environment environment;
+
+    private int lockPoolSize;
+
+    private ClassLoader classLoader;
+
+    private DataSource lockPool;
+
+    private boolean lockPoolResolved;
+
+    @Override
+    public void setImportMetadata(AnnotationMetadata importMetadata) {
+        AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+                importMetadata.getAnnotationAttributes(EnableDcsScheduling.class.getName(), false));
+        if (attributes != null) {
+            this.lockPoolSize = attributes.getNumber("lockPoolSize");
+        }
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
 
     @Bean
     public LockProvider lockProvider(DataSource dataSource) {
-        return new JdbcTemplateLockProvider(
-                JdbcTemplateLockProvider.Configuration.builder()
-                        .withJdbcTemplate(new JdbcTemplate(dataSource))
-                        .usingDbTime() // Works on Postgres, MySQL, MariaDb, MS SQL, Oracle, DB2, HSQL and H2
-                        .build()
-        );
+        JdbcTemplateLockProvider.Configuration.Builder builder = configurationBuilder(dataSource)
+                .usingDbTime(); // Works on Postgres, MySQL, MariaDb, MS SQL, Oracle, DB2, HSQL and H2
+        if (!isMySqlUpsert()) {
+            return new JdbcTemplateLockProvider(builder.build());
+        }
+        JdbcTemplateLockProvider lockProvider = new JdbcTemplateLockProvider(builder.usingMySqlUpsert().build());
+        checkMySqlUpsert(lockProvider);
+        return lockProvider;
+    }
+
+    /**
+     * Fails the startup if the connections report found rows. The lock pool opens
+     * MySQL and MariaDB connections with useAffectedRows=true, the application
+     * DataSource or a pool connecting through a DataSource class may not.
+     */
+    private static void checkMySqlUpsert(JdbcTemplateLockProvider lockProvider) {
+        try {
+            lockProvider.checkStatements();
+        } catch (DataAccessException e) {
+            log.warn("Could not check the MySQL upsert, it is checked on the first lock attempt instead", e);
+        }
+    }
+
+    @Bean
+    @Lazy
+    public ClusterMembership clusterMembership(DataSource dataSource) {
+        return new JdbcTemplateClusterMembership(configurationBuilder(dataSource).build());
+    }
+
+    @Bean
+    @Lazy
+    public ServerTimeSource serverTimeSource(DataSource dataSource) {
+        return new JdbcTemplateServerTimeSource(configurationBuilder(dataSource).usingDbTime().build());
+    }
+
+    @Override
+    public void destroy() {
+        if (lockPool != null) {
+            LockConnectionPool.close(lockPool);
+        }
+    }
+
+    /**
+     * Lock statements run on the dedicated lock pool if there is one, in auto-commit
+     * mode as they never take part in a transaction of the application there.
+     */
+    private JdbcTemplateLockProvider.Configuration.Builder configurationBuilder(DataSource dataSource) {
+        DataSource lockDataSource = lockDataSource(dataSource);
+        JdbcTemplateLockProvider.Configuration.Builder builder = JdbcTemplateLockProvider.Configuration.builder()
+                .withJdbcTemplate(new JdbcTemplate(lockDataSource));
+        if (lockDataSource != dataSource) {
+            builder.usingAutoCommit();
+        }
+        return builder;
+    }
+
+    private synchronized DataSource lockDataSource(DataSource dataSource) {
+        int poolSize = environment.getProperty(LOCK_POOL_SIZE_PROPERTY, Integer.class, lockPoolSize);
+        if (poolSize == 0) {
+            return dataSource;
+        }
+        if (poolSize < 0 || poolSize > MAX_LOCK_POOL_SIZE) {
+            throw new IllegalArgumentException("lockPoolSize must be between 0 and " + MAX_LOCK_POOL_SIZE + ", was " + poolSize);
+        }
+        if (!lockPoolResolved) {
+            lockPoolResolved = true;
+            if (!LockConnectionPool.isAvailable(classLoader)) {
+                log.warn("No dedicated lock connection pool without HikariCP on the classpath, "
+                        + "lock statements run on the application DataSource");
+            } else {
+                lockPool = LockConnectionPool.create(dataSource, poolSize, isMySqlUpsert());
+                if (lockPool == null) {
+                    log.warn("No dedicated lock connection pool, the application DataSource {} is not a Hikari pool "
+                            + "to copy the connection settings from, lock statements run on it", dataSource.getClass().getName());
+                } else {
+                    log.info("Using dedicated lock connection pool,size={}", poolSize);
+                }
+            }
+        }
+        return lockPool != null ? lockPool : dataSource;
+    }
+
+    private boolean isMySqlUpsert() {
+        return environment.getProperty(MYSQL_UPSERT_PROPERTY, Boolean.class, false);
     }
 }
@@ -0,0 +1,303 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import com.dsc.scheduler.support.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.ErrorHandler;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link TaskScheduler} which fires the triggers on a small pool of platform
+ * threads and runs the tasks on the executors of their groups, see
+ * {@link GroupExecutors}. A task blocked in I/O then does not hold a thread the
+ * triggers of other tasks need, and slow tasks of one group do not delay the
+ * others.
+ *
+ * <p>
+ * A repeated task is scheduled again once its run has finished, so runs of the
+ * same task do not overlap and fixed delays count from the end of the previous
+ * run, as with {@link ThreadPoolTaskScheduler}. Failures of the tasks are logged,
+ * a run rejected by a saturated group is skipped.
+ *
+ * @author typhoon
+ **/
+public class DispatchingTaskScheduler implements TaskScheduler, DisposableBean {
+    /** Name prefix of the threads firing the triggers. */
+    public static final String TRIGGER_THREAD_NAME = "task-trigger";
+    private static final Logger logger = LoggerFactory.getLogger(DispatchingTaskScheduler.class);
+    private final TriggerTimer timer;
+    private final GroupExecutors groupExecutors;
+    private final ErrorHandler errorHandler = TaskUtils.getDefaultErrorHandler(true);
+
+    /**
+     * @param timerPoolSize number of platform threads firing the triggers
+     * @param groupExecutors run the tasks, closed together with the scheduler
+     */
+    public DispatchingTaskScheduler(int timerPoolSize, GroupExecutors groupExecutors) {
+        this(executorTimer(timerPoolSize), groupExecutors);
+    }
+
+    /**
+     * @param timer fires the triggers, e.g. a {@link TimingWheel} for many tasks, shut down together with the scheduler
+     * @param groupExecutors run the tasks, closed together with the scheduler
+     */
+    public DispatchingTaskScheduler(TriggerTimer timer, GroupExecutors groupExecutors) {
+        this.timer = requireNonNull(timer);
+        this.groupExecutors = requireNonNull(groupExecutors);
+    }
+
+    /**
+     * @param poolSize number of platform threads firing the triggers
+     * @return timer backed by a {@link ThreadPoolTaskScheduler}
+     */
+    static TriggerTimer executorTimer(int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix(TRIGGER_THREAD_NAME);
+        scheduler.setPoolSize(poolSize);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.initialize();
+        return new TriggerTimer() {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+                return scheduler.schedule(task, startTime);
+            }
+
+            @Override
+            public void shutdown() {
+                scheduler.shutdown();
+            }
+        };
+    }
+
+    /**
+     * @return executor running tasks right away in the group of the calling thread, see
+     * {@link GroupExecutors#currentExecutor()}. Throws a {@link RejectedExecutionException}
+     * if the group is saturated.
+     */
+    public Executor currentGroupExecutor() {
+        Executor executor = groupExecutors.currentExecutor();
+        return task -> executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                errorHandler.handleError(ex);
+            }
+        });
+    }
+
+    @Override
+    @Nullable
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        return new DispatchedTask(task, trigger).schedule(null);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        return new DispatchedTask(task, context -> context.lastScheduledExecutionTime() == null ? startTime : null).schedule(null);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+        return schedule(task, periodic(startTime, period, true));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return scheduleAtFixedRate(task, new Date(), period);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+        return schedule(task, periodic(startTime, delay, false));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+        return scheduleWithFixedDelay(task, new Date(), delay);
+    }
+
+    /**
+     * @return executors of the job groups, e.g. for their rejection counts
+     */
+    public GroupExecutors getGroupExecutors() {
+        return groupExecutors;
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdown();
+        groupExecutors.close();
+    }
+
+    private static Trigger periodic(Date startTime, long period, boolean fixedRate) {
+        PeriodicTrigger periodic = new PeriodicTrigger(period);
+        periodic.setFixedRate(fixedRate);
+        return context -> context.lastScheduledExecutionTime() == null ? startTime : periodic.nextExecutionTime(context);
+    }
+
+    /**
+     * Task scheduled on the timer for its next execution time. The timer thread only
+     * hands the run over to the executor of the group, which schedules the next
+     * execution when the run has finished.
+     */
+    private final class DispatchedTask implements ScheduledFuture<Object> {
+        private final Runnable task;
+        private final Trigger trigger;
+        private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+        private final CompletableFuture<Object> completion = new CompletableFuture<>();
+        private final ReentrantLock mutex = new ReentrantLock();
+        @Nullable
+        private ScheduledFuture<?> timerFuture;
+        @Nullable
+        private Date scheduledTime;
+
+        private DispatchedTask(Runnable task, Trigger trigger) {
+            this.task = requireNonNull(task);
+            this.trigger = requireNonNull(trigger);
+        }
+
+        /**
+         * @param lastFailure completes the future of a task which is not executed any more
+         */
+        @Nullable
+        private DispatchedTask schedule(@Nullable Throwable lastFailure) {
+            mutex.lock();
+            try {
+                if (completion.isDone()) {
+                    return null;
+                }
+                scheduledTime = trigger.nextExecutionTime(triggerContext);
+                if (scheduledTime == null) {
+                    if (lastFailure != null) {
+                        completion.completeExceptionally(lastFailure);
+                    } else {
+                        completion.complete(null);
+                    }
+                    return null;
+                }
+                timerFuture = timer.schedule(this::dispatch, scheduledTime);
+                return this;
+            } catch (RejectedExecutionException e) {
+                // the scheduler has been shut down
+                completion.completeExceptionally(e);
+                return null;
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        private void dispatch() {
+            try {
+                groupExecutors.executorFor(task).execute(this::run);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Skipping run of task {}: {}", task, e.getMessage());
+                Date now = new Date();
+                completed(now, now);
+                schedule(e);
+            }
+        }
+
+        private void run() {
+            Date actualExecutionTime = new Date();
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                errorHandler.handleError(ex);
+            }
+            completed(actualExecutionTime, new Date());
+            schedule(null);
+        }
+
+        private void completed(Date actualExecutionTime, Date completionTime) {
+            mutex.lock();
+            try {
+                triggerContext.update(scheduledTime, actualExecutionTime, completionTime);
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            mutex.lock();
+            try {
+                if (timerFuture != null) {
+                    timerFuture.cancel(mayInterruptIfRunning);
+                }
+                return completion.cancel(mayInterruptIfRunning);
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return completion.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            mutex.lock();
+            try {
+                return timerFuture != null ? timerFuture.getDelay(unit) : 0;
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (this == other) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
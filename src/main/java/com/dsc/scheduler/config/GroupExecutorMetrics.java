@@ -0,0 +1,46 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publishes the runs rejected by the saturated job groups as the
+ * {@value #REJECTED_RUNS} counter, tagged with the group. Groups created after
+ * binding get their counter on their first job.
+ *
+ * @author typhoon
+ **/
+public class GroupExecutorMetrics implements MeterBinder {
+    public static final String REJECTED_RUNS = "dcs.scheduler.group.rejected";
+
+    private final GroupExecutors groupExecutors;
+
+    public GroupExecutorMetrics(GroupExecutors groupExecutors) {
+        this.groupExecutors = requireNonNull(groupExecutors);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        groupExecutors.addGroupListener(group -> FunctionCounter
+                .builder(REJECTED_RUNS, groupExecutors, executors -> executors.getRejectedCount(group))
+                .description("Runs skipped because the queue of their job group was full")
+                .tag("group", group)
+                .register(registry));
+    }
+}
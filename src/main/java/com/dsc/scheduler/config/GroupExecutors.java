@@ -0,0 +1,228 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import com.dsc.scheduler.annotation.DcsScheduled;
+import com.dsc.scheduler.support.DcsScheduledMethodRunnable;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executors of the job groups, see {@link DcsScheduled#group()}. Each group gets a
+ * fixed number of threads on its first job, runs which find all threads busy wait
+ * in the queue of the group and start late, like on a single scheduler pool. Only
+ * a group with a queue-capacity property has a bounded queue, runs which find it
+ * full are rejected and counted per group, see {@link GroupExecutorMetrics}. A
+ * group with a pool size of {@value #THREAD_PER_TASK} starts a new thread for each
+ * run instead, which suits virtual threads, there is nothing to queue nor to reject.
+ *
+ * <p>
+ * The sizes are read from the dcs.scheduler.groups.&lt;group&gt;.pool-size and
+ * dcs.scheduler.groups.&lt;group&gt;.queue-capacity properties. Tasks which are not
+ * scheduled methods run in the group of the thread submitting them, or in the
+ * {@link DcsScheduled#DEFAULT_GROUP default group} when submitted by other threads.
+ *
+ * @author typhoon
+ **/
+public class GroupExecutors implements AutoCloseable {
+    public static final String PROPERTY_PREFIX = "dcs.scheduler.groups.";
+    /** Queue capacity of the groups without a queue-capacity property. */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    /** Pool size of the groups starting a thread per run, the queue capacity does not apply. */
+    public static final int THREAD_PER_TASK = 0;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final ThreadLocal<String> currentGroup = new ThreadLocal<>();
+
+    private final PropertyResolver properties;
+    private final int defaultPoolSize;
+    private final Function<String, ThreadFactory> threadFactories;
+    private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> groupListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * @param properties source of the group sizes
+     * @param defaultPoolSize threads of the groups without a pool-size property, or
+     *                        {@link #THREAD_PER_TASK}
+     * @param threadFactories creates the thread factory of a group from its name
+     */
+    public GroupExecutors(PropertyResolver properties, int defaultPoolSize, Function<String, ThreadFactory> threadFactories) {
+        this.properties = requireNonNull(properties);
+        this.defaultPoolSize = defaultPoolSize;
+        this.threadFactories = requireNonNull(threadFactories);
+    }
+
+    /**
+     * @param task scheduled task
+     * @return executor of the group of the task
+     */
+    public Executor executorFor(Runnable task) {
+        if (task instanceof DcsScheduledMethodRunnable) {
+            String group = ((DcsScheduledMethodRunnable) task).getGroup();
+            return executor(StringUtils.hasText(group) ? group : DcsScheduled.DEFAULT_GROUP);
+        }
+        return currentExecutor();
+    }
+
+    /**
+     * @return executor of the group of the calling thread, of the default group when
+     * called outside of the job groups
+     */
+    public Executor currentExecutor() {
+        String group = currentGroup.get();
+        return executor(group != null ? group : DcsScheduled.DEFAULT_GROUP);
+    }
+
+    /**
+     * @param group group name
+     * @return number of runs of the group rejected so far
+     */
+    public long getRejectedCount(String group) {
+        Group existing = groups.get(group);
+        return existing != null ? existing.rejected.sum() : 0;
+    }
+
+    /**
+     * @return number of rejected runs by group, for every group which has run a job
+     */
+    public Map<String, Long> getRejectedCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        groups.forEach((name, group) -> counts.put(name, group.rejected.sum()));
+        return counts;
+    }
+
+    /**
+     * @param listener called with the name of every group, right away for the
+     *                 existing groups and later for each new group on its first job
+     */
+    public synchronized void addGroupListener(Consumer<String> listener) {
+        groupListeners.add(listener);
+        groups.keySet().forEach(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        groups.values().forEach(Group::shutdown);
+    }
+
+    private Executor executor(String group) {
+        if (closed) {
+            throw new RejectedExecutionException("Executors of the job groups have been closed");
+        }
+        Group existing = groups.get(group);
+        return existing != null ? existing.executor : addGroup(group);
+    }
+
+    /** Serialized with {@link #addGroupListener}, so every listener sees every group once. */
+    private synchronized Executor addGroup(String name) {
+        Group existing = groups.get(name);
+        if (existing != null) {
+            return existing.executor;
+        }
+        Group group = newGroup(name);
+        groups.put(name, group);
+        groupListeners.forEach(listener -> listener.accept(name));
+        return group.executor;
+    }
+
+    private Group newGroup(String name) {
+        int poolSize = properties.getProperty(PROPERTY_PREFIX + name + ".pool-size", Integer.class, defaultPoolSize);
+        int queueCapacity = properties.getProperty(PROPERTY_PREFIX + name + ".queue-capacity", Integer.class, UNBOUNDED);
+        if (poolSize < THREAD_PER_TASK || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid size of job group '" + name + "', pool-size " + poolSize
+                    + " and queue-capacity " + queueCapacity);
+        }
+        ThreadFactory threadFactory = threadFactories.apply(name);
+        return new Group(name, poolSize, queueCapacity, task -> threadFactory.newThread(() -> {
+            currentGroup.set(name);
+            task.run();
+        }));
+    }
+
+    private static final class Group {
+        private final LongAdder rejected = new LongAdder();
+        private final Executor executor;
+        private final Runnable shutdown;
+
+        private Group(String name, int poolSize, int queueCapacity, ThreadFactory threadFactory) {
+            if (poolSize == THREAD_PER_TASK) {
+                ThreadPerTaskExecutor threadPerTask = new ThreadPerTaskExecutor(name, threadFactory);
+                this.executor = threadPerTask;
+                this.shutdown = threadPerTask::shutdown;
+                return;
+            }
+            BlockingQueue<Runnable> queue = queueCapacity > 0 ? new LinkedBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, threadFactory,
+                    (task, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Job group '" + name + "' has been shut down");
+                        }
+                        rejected.increment();
+                        throw new RejectedExecutionException("Job group '" + name + "' is saturated, "
+                                + poolSize + " threads busy and " + queueCapacity + " runs queued");
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.shutdown = pool::shutdown;
+        }
+
+        private void shutdown() {
+            shutdown.run();
+        }
+    }
+
+    private static final class ThreadPerTaskExecutor implements Executor {
+        private final String name;
+        private final ThreadFactory threadFactory;
+        private volatile boolean shutdown;
+
+        private ThreadPerTaskExecutor(String name, ThreadFactory threadFactory) {
+            this.name = name;
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Job group '" + name + "' has been shut down");
+            }
+            threadFactory.newThread(task).start();
+        }
+
+        private void shutdown() {
+            shutdown = true;
+        }
+    }
+}
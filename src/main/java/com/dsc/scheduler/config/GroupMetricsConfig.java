@@ -0,0 +1,32 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Metrics of the job groups, bound by the meter registry of the application when
+ * Micrometer is on the classpath, see {@link GroupExecutorMetrics}.
+ *
+ * @author typhoon
+ **/
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+public class GroupMetricsConfig {
+
+    @Bean
+    public GroupExecutorMetrics groupExecutorMetrics(DispatchingTaskScheduler taskScheduler) {
+        return new GroupExecutorMetrics(taskScheduler.getGroupExecutors());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import com.dsc.scheduler.support.Nullable;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Dedicated connection pool of the lock statements, see
+ * {@link com.dsc.scheduler.annotation.EnableDcsScheduling#lockPoolSize()}. All the
+ * HikariCP code lives here, {@link DBProviderConfig} only loads this class when
+ * HikariCP is on the classpath.
+ *
+ * @author typhoon
+ **/
+final class LockConnectionPool {
+    private static final String HIKARI_DATA_SOURCE_CLASS = "com.zaxxer.hikari.HikariDataSource";
+    private static final Duration KEEPALIVE = Duration.ofSeconds(60);
+
+    private LockConnectionPool() {
+    }
+
+    /**
+     * @param classLoader class loader of the application
+     * @return true if HikariCP is on the classpath
+     */
+    static boolean isAvailable(@Nullable ClassLoader classLoader) {
+        return ClassUtils.isPresent(HIKARI_DATA_SOURCE_CLASS, classLoader);
+    }
+
+    /**
+     * Creates a pool connecting the same way as the application pool. Only a Hikari
+     * application pool tells how it connects, a pool wrapping any other DataSource
+     * would borrow its connections from the application pool again.
+     *
+     * @param dataSource application DataSource
+     * @param poolSize number of connections, all of them kept open
+     * @param mySqlUpsert whether MySQL connections must report the affected rows
+     * @return the pool, null if the application DataSource is not a Hikari pool
+     */
+    @Nullable
+    static DataSource create(DataSource dataSource, int poolSize, boolean mySqlUpsert) {
+        HikariDataSource application = unwrap(dataSource);
+        if (application == null) {
+            return null;
+        }
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(application.getJdbcUrl());
+        config.setUsername(application.getUsername());
+        config.setPassword(application.getPassword());
+        if (application.getDriverClassName() != null) {
+            config.setDriverClassName(application.getDriverClassName());
+        }
+        config.setDataSourceClassName(application.getDataSourceClassName());
+        config.setDataSource(application.getDataSource());
+        config.setDataSourceJNDI(application.getDataSourceJNDI());
+        config.getDataSourceProperties().putAll(application.getDataSourceProperties());
+        config.setCatalog(application.getCatalog());
+        config.setSchema(application.getSchema());
+        config.setConnectionInitSql(application.getConnectionInitSql());
+        config.setConnectionTestQuery(application.getConnectionTestQuery());
+        config.setConnectionTimeout(application.getConnectionTimeout());
+        config.setValidationTimeout(application.getValidationTimeout());
+        config.setMaxLifetime(application.getMaxLifetime());
+        String jdbcUrl = config.getJdbcUrl();
+        if (jdbcUrl != null && jdbcUrl.startsWith("jdbc:mysql:")) {
+            // the few lock statements are prepared once per connection on the server
+            config.getDataSourceProperties().putIfAbsent("useServerPrepStmts", "true");
+            config.getDataSourceProperties().putIfAbsent("cachePrepStmts", "true");
+        }
+        if (mySqlUpsert && jdbcUrl != null && (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:"))) {
+            // both drivers know the property, other pools are checked by the lock provider
+            config.getDataSourceProperties().put("useAffectedRows", "true");
+        }
+        config.setPoolName("dcs-scheduler-lock-pool");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setKeepaliveTime(KEEPALIVE.toMillis());
+        config.setAutoCommit(true);
+        return new HikariDataSource(config);
+    }
+
+    static void close(DataSource pool) {
+        ((HikariDataSource) pool).close();
+    }
+
+    @Nullable
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            return (HikariDataSource) dataSource;
+        }
+        try {
+            // e.g. behind a proxy of a tracing or a routing library
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
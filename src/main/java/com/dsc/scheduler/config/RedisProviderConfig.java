@@ -1,11 +1,19 @@
 package com.dsc.scheduler.config;
 
 import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.lock.provider.redis.ReactiveRedisLockProvider;
+import com.dsc.scheduler.lock.provider.redis.RedisClusterMembership;
 import com.dsc.scheduler.lock.provider.redis.RedisLockProvider;
+import com.dsc.scheduler.lock.provider.redis.RedisServerTimeSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.util.ClassUtils;
 
 /**
  * @author typhoon
@@ -15,12 +23,41 @@ public class RedisProviderConfig {
     @Autowired
     private Environment environment;
 
+    /**
+     * A reactive connection factory, e.g. Lettuce, also locks without blocking a thread
+     * when asyncLocking is on.
+     */
     @Bean
     public LockProvider lockProvider(RedisConnectionFactory connectionFactory) {
+        RedisLockProvider lockProvider = isReactive(connectionFactory)
+                ? new ReactiveRedisLockProvider(connectionFactory, (ReactiveRedisConnectionFactory) connectionFactory, getEnv())
+                : new RedisLockProvider(connectionFactory, getEnv());
+        lockProvider.loadScripts();
+        return lockProvider;
+    }
+
+    @Bean
+    @Lazy
+    public ClusterMembership clusterMembership(RedisConnectionFactory connectionFactory) {
+        return new RedisClusterMembership(connectionFactory, getEnv());
+    }
+
+    @Bean
+    @Lazy
+    public ServerTimeSource serverTimeSource(RedisConnectionFactory connectionFactory) {
+        return new RedisServerTimeSource(connectionFactory);
+    }
+
+    private static boolean isReactive(RedisConnectionFactory connectionFactory) {
+        return connectionFactory instanceof ReactiveRedisConnectionFactory
+                && ClassUtils.isPresent("reactor.core.publisher.Mono", RedisProviderConfig.class.getClassLoader());
+    }
+
+    private String getEnv() {
         String env = "default";
         if(null != environment.getActiveProfiles() && environment.getActiveProfiles().length > 0) {
             env = environment.getActiveProfiles()[0];
         }
-        return new RedisLockProvider(connectionFactory, env);
+        return env;
     }
 }
@@ -1,28 +1,113 @@
 package com.dsc.scheduler.config;
 
-import com.dsc.scheduler.lock.DefaultLockingTaskExecutor;
-import com.dsc.scheduler.lock.LockProvider;
-import com.dsc.scheduler.lock.LockingTaskExecutor;
+import com.dsc.scheduler.annotation.EnableDcsScheduling;
+import com.dsc.scheduler.aop.StringToDurationConverter;
+import com.dsc.scheduler.lock.ClockOffsetEstimator;
+import com.dsc.scheduler.lock.ServerTimeSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportAware;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.context.annotation.Role;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
-import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Clock;
 
 /**
  * @author typhoon
  **/
-public class SchedulerConfig {
+public class SchedulerConfig implements ImportAware {
+    /** Overrides {@link EnableDcsScheduling#virtualThreads()}. */
+    public static final String VIRTUAL_THREADS_PROPERTY = "dcs.scheduler.virtual-threads";
+    /**
+     * Timer firing the triggers, {@value #EXECUTOR_TIMER} (default) or {@value #TIMING_WHEEL_TIMER}
+     * for tens of thousands of jobs, see {@link TimingWheel}.
+     */
+    public static final String TIMER_PROPERTY = "dcs.scheduler.timer";
+    /** Tick of the {@link TimingWheel}, same format as {@link EnableDcsScheduling#defaultLockAtMostFor()}. */
+    public static final String TIMER_TICK_PROPERTY = "dcs.scheduler.timer-tick";
+    /** Overrides {@link EnableDcsScheduling#syncClock()}. */
+    public static final String SYNC_CLOCK_PROPERTY = "dcs.scheduler.sync-clock";
+    /** Time between two rounds of server time samples, same format as {@link EnableDcsScheduling#defaultLockAtMostFor()}. */
+    public static final String SYNC_CLOCK_INTERVAL_PROPERTY = "dcs.scheduler.sync-clock-interval";
+    public static final String EXECUTOR_TIMER = "executor";
+    public static final String TIMING_WHEEL_TIMER = "timing-wheel";
+    private static final int TRIGGER_POOL_SIZE = 2;
+    private static final String THREAD_NAME_PREFIX = "task-";
+
+    @Autowired
+    private Environment environment;
+
+    private boolean virtualThreads;
+
+    private boolean syncClock;
+
+    @Override
+    public void setImportMetadata(AnnotationMetadata importMetadata) {
+        AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+                importMetadata.getAnnotationAttributes(EnableDcsScheduling.class.getName(), false));
+        if (attributes != null) {
+            this.virtualThreads = attributes.getBoolean("virtualThreads");
+            this.syncClock = attributes.getBoolean("syncClock");
+        }
+    }
 
+    /**
+     * Triggers fire on two platform threads or on a {@link TimingWheel}, the jobs run on
+     * the executors of their groups, see {@link GroupExecutors}.
+     */
     @Bean
-    public TaskScheduler taskScheduler() {
-        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
-        taskScheduler.setThreadNamePrefix("task-scheduler");
-        taskScheduler.setPoolSize(Runtime.getRuntime().availableProcessors());
-        taskScheduler.setErrorHandler(TaskUtils.getDefaultErrorHandler(true));
-        taskScheduler.initialize();
-        return taskScheduler;
+    public DispatchingTaskScheduler taskScheduler() {
+        GroupExecutors groupExecutors;
+        if (environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, virtualThreads)) {
+            if (JobThreads.newVirtualThreadFactory(THREAD_NAME_PREFIX) == null) {
+                throw new IllegalStateException(
+                        "Virtual threads need Java 21 or later, running on " + System.getProperty("java.version"));
+            }
+            groupExecutors = new GroupExecutors(environment, GroupExecutors.THREAD_PER_TASK,
+                    group -> JobThreads.newVirtualThreadFactory(THREAD_NAME_PREFIX + group + "-"));
+        } else {
+            groupExecutors = new GroupExecutors(environment, Runtime.getRuntime().availableProcessors(),
+                    group -> new CustomizableThreadFactory(THREAD_NAME_PREFIX + group + "-"));
+        }
+        return new DispatchingTaskScheduler(triggerTimer(environment), groupExecutors);
+    }
+
+    /**
+     * Only started when the clock is synchronized, the server time source of the
+     * provider is not even created otherwise.
+     */
+    @Bean(destroyMethod = "close")
+    public ClockOffsetEstimator clockOffsetEstimator(@Lazy ServerTimeSource serverTimeSource) {
+        String interval = environment.getProperty(SYNC_CLOCK_INTERVAL_PROPERTY);
+        ClockOffsetEstimator estimator = new ClockOffsetEstimator(serverTimeSource,
+                interval != null ? StringToDurationConverter.INSTANCE.convert(interval) : ClockOffsetEstimator.DEFAULT_INTERVAL,
+                ClockOffsetEstimator.DEFAULT_MAX_ROUND_TRIP, Clock.systemUTC());
+        if (environment.getProperty(SYNC_CLOCK_PROPERTY, Boolean.class, syncClock)) {
+            estimator.start();
+        }
+        return estimator;
+    }
+
+    /**
+     * @param properties source of the {@value #TIMER_PROPERTY} and {@value #TIMER_TICK_PROPERTY} properties
+     * @return timer of the scheduler, its threads named {@link DispatchingTaskScheduler#TRIGGER_THREAD_NAME}
+     */
+    public static TriggerTimer triggerTimer(PropertyResolver properties) {
+        String timer = properties.getProperty(TIMER_PROPERTY, EXECUTOR_TIMER);
+        if (TIMING_WHEEL_TIMER.equals(timer)) {
+            String tick = properties.getProperty(TIMER_TICK_PROPERTY);
+            return new TimingWheel(tick != null ? StringToDurationConverter.INSTANCE.convert(tick) : TimingWheel.DEFAULT_TICK,
+                    DispatchingTaskScheduler.TRIGGER_THREAD_NAME);
+        }
+        if (!EXECUTOR_TIMER.equals(timer)) {
+            throw new IllegalArgumentException("Unknown " + TIMER_PROPERTY + " '" + timer + "', expected "
+                    + EXECUTOR_TIMER + " or " + TIMING_WHEEL_TIMER);
+        }
+        return DispatchingTaskScheduler.executorTimer(TRIGGER_POOL_SIZE);
     }
 
 }
@@ -0,0 +1,333 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link TriggerTimer} built on a hierarchical hashed timing wheel, for tens of
+ * thousands of tasks. Scheduling a task is a lock free enqueue, no matter how many
+ * tasks are pending, while the delay queue of a {@code ScheduledThreadPoolExecutor}
+ * takes O(log n) under a single lock for every insertion and removal.
+ *
+ * <p>
+ * A single thread advances the wheel every tick. It moves the new and cancelled
+ * tasks from their queues into or out of the wheel and runs the tasks due in the
+ * current tick. The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots,
+ * a slot of a level spans a whole rotation of the level below and is cascaded
+ * down when that level wraps around, so each task is moved at most once per level.
+ * Tasks run at most one tick late, the delays are rounded up to whole ticks.
+ * Shutting the wheel down cancels the tasks which have not run yet.
+ *
+ * @author typhoon
+ **/
+public class TimingWheel implements TriggerTimer {
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(10);
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /** Ticks covered by all levels, later tasks wait in the last slot of the top level and are cascaded again. */
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+    /** New tasks moved into the wheel per tick at most, so the due tasks run even if tasks are added faster. */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    /** Last tick processed, only written by the worker. */
+    private long currentTick;
+
+    public TimingWheel() {
+        this(DEFAULT_TICK, "dcs-timing-wheel");
+    }
+
+    /**
+     * @param tick duration of a tick, the precision of the timer
+     * @param threadName name of the thread advancing the wheel
+     */
+    public TimingWheel(Duration tick, String threadName) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive, got " + tick);
+        }
+        this.tickNanos = tick.toNanos();
+        for (Bucket[] level : wheel) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Bucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::work, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(startTime.getTime() - System.currentTimeMillis());
+        return schedule(task, System.nanoTime() + Math.max(0, delayNanos));
+    }
+
+    /**
+     * @param task task to run once
+     * @param deadlineNanos when to run the task, in {@link System#nanoTime()}
+     * @return future of the run
+     */
+    ScheduledFuture<?> schedule(Runnable task, long deadlineNanos) {
+        if (!running) {
+            throw new TaskRejectedException("Timing wheel has been shut down");
+        }
+        Timeout timeout = new Timeout(task, deadlineNanos);
+        pending.add(timeout);
+        if (!running) {
+            // the worker may have cancelled the pending tasks already
+            timeout.cancel(false);
+        }
+        return timeout;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void work() {
+        while (running) {
+            long nextTickNanos = startOfTick(currentTick + 1);
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            // catches up tick by tick if the thread has been delayed
+            currentTick++;
+            try {
+                tick();
+            } catch (Throwable ex) {
+                logger.error("Unexpected error in timing wheel tick {}", currentTick, ex);
+            }
+        }
+        cancelRemaining();
+    }
+
+    /** Completes the futures of the tasks which will not run, so no caller waits for them forever. */
+    private void cancelRemaining() {
+        for (Bucket[] level : wheel) {
+            for (Bucket bucket : level) {
+                for (Timeout timeout = bucket.head; timeout != null; ) {
+                    Timeout next = timeout.next;
+                    bucket.remove(timeout);
+                    timeout.cancel(false);
+                    timeout = next;
+                }
+            }
+        }
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            timeout.cancel(false);
+        }
+        cancelled.clear();
+    }
+
+    /**
+     * @param tick tick of the wheel
+     * @return time at which the tick starts, in {@link System#nanoTime()}
+     */
+    long startOfTick(long tick) {
+        return startNanos + tick * tickNanos;
+    }
+
+    /**
+     * @return tick being processed, only meaningful in a task run by the wheel
+     */
+    long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return number of tasks in the slots of the wheel, only meaningful in a task run by the wheel
+     */
+    int placedCount() {
+        int count = 0;
+        for (Bucket[] level : wheel) {
+            for (Bucket bucket : level) {
+                for (Timeout timeout = bucket.head; timeout != null; timeout = timeout.next) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void tick() {
+        long tick = currentTick;
+        removeCancelled();
+        cascade(tick);
+        Timeout timeout;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK && (timeout = pending.poll()) != null; i++) {
+            // published before the state is read, so a concurrent cancel either sees it or is seen
+            timeout.placed = true;
+            if (!timeout.isDone()) {
+                add(timeout);
+            }
+        }
+        Bucket due = wheel[0][(int) (tick & SLOT_MASK)];
+        for (timeout = due.head; timeout != null; ) {
+            Timeout next = timeout.next;
+            due.remove(timeout);
+            if (timeout.deadlineTick <= tick) {
+                timeout.run();
+            } else {
+                add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void removeCancelled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = cancelled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Moves the tasks of the slots reached by the upper levels down, a level is
+     * reached each time the level below wraps around.
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((tick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            Bucket bucket = wheel[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+            for (Timeout timeout = bucket.head; timeout != null; ) {
+                Timeout next = timeout.next;
+                bucket.remove(timeout);
+                add(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void add(Timeout timeout) {
+        if (timeout.deadlineTick == Long.MIN_VALUE) {
+            // deadline in ticks rounded up, so a task never runs early
+            timeout.deadlineTick = Math.max(currentTick,
+                    (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        }
+        long delta = Math.min(timeout.deadlineTick - currentTick, MAX_DELTA);
+        long target = currentTick + delta;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        wheel[level][(int) ((target >>> (SLOT_BITS * level)) & SLOT_MASK)].add(timeout);
+    }
+
+    /** Tasks of a slot, a doubly linked list owned by the worker. */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+
+    private final class Timeout extends FutureTask<Object> implements ScheduledFuture<Object> {
+        private final long deadlineNanos;
+        /** Set by the worker when it takes the task from the pending queue. */
+        private volatile boolean placed;
+        private long deadlineTick = Long.MIN_VALUE;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            super(task, null);
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelledNow = super.cancel(mayInterruptIfRunning);
+            if (cancelledNow && placed) {
+                // still pending otherwise, the worker drops it when taking it from the queue
+                cancelled.add(this);
+            }
+            return cancelledNow;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (this == other) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Fires the triggers of a {@link DispatchingTaskScheduler}. The tasks given to the
+ * timer only hand a run over to an executor, so they are run on the timer threads.
+ *
+ * @author typhoon
+ **/
+public interface TriggerTimer {
+
+    /**
+     * @param task task to run once
+     * @param startTime when to run the task, right away if in the past
+     * @return future of the run, cancelling it keeps the task from running
+     */
+    ScheduledFuture<?> schedule(Runnable task, Date startTime);
+
+    /**
+     * Stops the timer, scheduled tasks do not run any more.
+     */
+    void shutdown();
+}
@@ -1,9 +1,14 @@
 package com.dsc.scheduler.config;
 
 import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.lock.provider.zk.ZookeeperCuratorClusterMembership;
 import com.dsc.scheduler.lock.provider.zk.ZookeeperCuratorLockProvider;
+import com.dsc.scheduler.lock.provider.zk.ZookeeperCuratorServerTimeSource;
 import org.apache.curator.framework.CuratorFramework;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
 
 /**
  * @author typhoon
@@ -15,4 +20,16 @@ public class ZkProviderConfig {
     public LockProvider lockProvider(CuratorFramework client) {
         return new ZookeeperCuratorLockProvider(client);
     }
+
+    @Bean
+    @Lazy
+    public ClusterMembership clusterMembership(CuratorFramework client) {
+        return new ZookeeperCuratorClusterMembership(client);
+    }
+
+    @Bean
+    @Lazy
+    public ServerTimeSource serverTimeSource(CuratorFramework client) {
+        return new ZookeeperCuratorServerTimeSource(client);
+    }
 }
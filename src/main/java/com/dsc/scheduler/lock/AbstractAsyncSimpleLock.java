@@ -0,0 +1,91 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.LockException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Base of the locks of native {@link AsyncLockProvider} implementations. The
+ * blocking operations wait for the asynchronous ones, failures of the stage are
+ * rethrown unwrapped.
+ *
+ * @author typhoon
+ **/
+public abstract class AbstractAsyncSimpleLock implements AsyncSimpleLock {
+    private volatile boolean valid = true;
+    protected final LockConfiguration lockConfiguration;
+
+    protected AbstractAsyncSimpleLock(LockConfiguration lockConfiguration) {
+        this.lockConfiguration = lockConfiguration;
+    }
+
+    @Override
+    public final CompletionStage<Void> unlockAsync() {
+        checkValidity();
+        valid = false;
+        return doUnlockAsync();
+    }
+
+    @Override
+    public final void unlock() {
+        join(unlockAsync());
+    }
+
+    protected abstract CompletionStage<Void> doUnlockAsync();
+
+    @Override
+    public CompletionStage<Optional<AsyncSimpleLock>> extendAsync(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        checkValidity();
+        CompletionStage<Optional<AsyncSimpleLock>> result = doExtendAsync(
+                new LockConfiguration(ClockProvider.now(), lockConfiguration.getName(), lockAtMostFor, lockAtLeastFor));
+        valid = false;
+        return result;
+    }
+
+    @Override
+    public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return join(extendAsync(lockAtMostFor, lockAtLeastFor)).map(SimpleLock.class::cast);
+    }
+
+    protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+        throw new UnsupportedOperationException();
+    }
+
+    private void checkValidity() {
+        if (!valid) {
+            throw new IllegalStateException(
+                    "Lock " + lockConfiguration.getName() + " is not valid, it has already been unlocked or extended");
+        }
+    }
+
+    private static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new LockException("Lock operation failed", cause);
+        }
+    }
+}
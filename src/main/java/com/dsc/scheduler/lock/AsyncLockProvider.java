@@ -0,0 +1,40 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.NonNull;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non blocking variant of {@link LockProvider}. The lock is acquired without
+ * occupying the calling thread, the returned stage may be completed by a thread
+ * of the lock store client, so callers must not block in its continuations.
+ *
+ * @author typhoon
+ * @see DefaultLockingTaskExecutor#executeWithLockAsync(LockingTaskExecutor.TaskWithResult, LockConfiguration)
+ **/
+public interface AsyncLockProvider {
+
+    /**
+     * Tries to acquire the lock, see {@link LockProvider#lock(LockConfiguration)}.
+     *
+     * @param lockConfiguration config
+     * @return stage completed with the acquired lock, or an empty optional if the
+     *         lock is held by someone else
+     */
+    @NonNull
+    CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration);
+}
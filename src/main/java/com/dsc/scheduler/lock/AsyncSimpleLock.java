@@ -0,0 +1,52 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link SimpleLock} which can also be released and extended without blocking
+ * the calling thread, returned by {@link AsyncLockProvider}.
+ *
+ * @author typhoon
+ **/
+public interface AsyncSimpleLock extends SimpleLock {
+
+    /**
+     * Unlocks the lock without blocking, see {@link #unlock()}.
+     *
+     * @return stage completed once the lock is released
+     * @throws IllegalStateException
+     *             if the lock has already been unlocked or extended
+     */
+    CompletionStage<Void> unlockAsync();
+
+    /**
+     * Extends the lock without blocking, see {@link #extend(Duration, Duration)}.
+     *
+     * @param lockAtMostFor most
+     * @param lockAtLeastFor least
+     * @return stage completed with a new lock or an empty optional if the lock can
+     *         not be extended
+     * @throws IllegalStateException
+     *             if the lock has already been unlocked or extended
+     * @throws UnsupportedOperationException
+     *             if the lock extension is not supported by the lock provider.
+     */
+    default CompletionStage<Optional<AsyncSimpleLock>> extendAsync(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        throw new UnsupportedOperationException();
+    }
+}
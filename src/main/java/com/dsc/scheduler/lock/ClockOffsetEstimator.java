@@ -0,0 +1,204 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.NonNull;
+import com.dsc.scheduler.support.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps {@link ClockProvider} in line with the clock of the lock store. Every
+ * interval it reads the server time a few times from a {@link ServerTimeSource}
+ * and applies the estimated offset to the local clock, the lock operations
+ * themselves never ask the server for the time.
+ *
+ * <p>
+ * The offset is estimated like NTP does with a single server timestamp: the
+ * server time is assumed to be read in the middle of the round trip, so the error
+ * of a sample is at most half of its round trip. Of the samples of a round the
+ * one with the shortest round trip is kept, and the offset applied is the one of
+ * the shortest round trip among the last {@value #WINDOW_SIZE} rounds, so a slow
+ * network or a busy store does not shift the clock. Samples with a round trip
+ * above the limit are dropped. The clock keeps its last offset while the store
+ * can not be reached.
+ *
+ * @author typhoon
+ **/
+public class ClockOffsetEstimator implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ClockOffsetEstimator.class);
+
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_MAX_ROUND_TRIP = Duration.ofSeconds(1);
+    private static final int SAMPLES_PER_ROUND = 4;
+    private static final int WINDOW_SIZE = 8;
+
+    private final ServerTimeSource serverTimeSource;
+    private final Duration interval;
+    private final long maxRoundTripNanos;
+    private final Clock baseClock;
+    private final ScheduledExecutorService rounds;
+    private final ReentrantLock mutex = new ReentrantLock();
+    /** Best sample of each of the last rounds, only used by the estimating thread. */
+    private final Deque<Sample> window = new ArrayDeque<>(WINDOW_SIZE);
+
+    @Nullable
+    private volatile Sample current;
+    private boolean started;
+
+    public ClockOffsetEstimator(@NonNull ServerTimeSource serverTimeSource) {
+        this(serverTimeSource, DEFAULT_INTERVAL, DEFAULT_MAX_ROUND_TRIP, Clock.systemUTC());
+    }
+
+    /**
+     * @param serverTimeSource clock of the lock store
+     * @param interval time between two rounds of samples
+     * @param maxRoundTrip samples taking longer are dropped
+     * @param baseClock local clock the offset is applied to
+     */
+    public ClockOffsetEstimator(@NonNull ServerTimeSource serverTimeSource, @NonNull Duration interval,
+                                @NonNull Duration maxRoundTrip, @NonNull Clock baseClock) {
+        this.serverTimeSource = requireNonNull(serverTimeSource);
+        this.interval = requireNonNull(interval);
+        this.maxRoundTripNanos = maxRoundTrip.toNanos();
+        this.baseClock = requireNonNull(baseClock);
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive, got " + interval);
+        }
+        this.rounds = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dcs-clock-offset");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts estimating in the background, the first round runs right away.
+     */
+    public void start() {
+        mutex.lock();
+        try {
+            if (!started) {
+                started = true;
+                rounds.scheduleWithFixedDelay(this::estimate, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Takes a round of samples and applies the best offset known.
+     */
+    void estimate() {
+        Sample best = null;
+        for (int i = 0; i < SAMPLES_PER_ROUND; i++) {
+            Sample sample;
+            try {
+                sample = sample();
+            } catch (RuntimeException e) {
+                logger.warn("Can not read the server time, keeping clock offset {}", getOffset(), e);
+                return;
+            }
+            if (sample.roundTripNanos <= maxRoundTripNanos && (best == null || sample.roundTripNanos < best.roundTripNanos)) {
+                best = sample;
+            }
+        }
+        if (best == null) {
+            logger.warn("Server time round trips above {}ms, keeping clock offset {}",
+                    TimeUnit.NANOSECONDS.toMillis(maxRoundTripNanos), getOffset());
+            return;
+        }
+        if (window.size() == WINDOW_SIZE) {
+            window.removeFirst();
+        }
+        window.addLast(best);
+        Sample chosen = window.stream().min((a, b) -> Long.compare(a.roundTripNanos, b.roundTripNanos)).orElse(best);
+        if (rounds.isShutdown()) {
+            // closed during the round, the clock has been put back already
+            return;
+        }
+        Sample previous = current;
+        current = chosen;
+        if (previous == null || previous.offsetMillis != chosen.offsetMillis) {
+            ClockProvider.setClock(Clock.offset(baseClock, Duration.ofMillis(chosen.offsetMillis)));
+            if (previous == null) {
+                logger.info("Clock offset to the server is {}ms, round trip {}ms", chosen.offsetMillis,
+                        TimeUnit.NANOSECONDS.toMillis(chosen.roundTripNanos));
+            } else {
+                logger.debug("Clock offset to the server changed from {}ms to {}ms", previous.offsetMillis, chosen.offsetMillis);
+            }
+        }
+    }
+
+    private Sample sample() {
+        Instant sent = baseClock.instant();
+        long start = System.nanoTime();
+        Instant serverTime = serverTimeSource.serverTime();
+        long roundTripNanos = System.nanoTime() - start;
+        Instant middle = sent.plusNanos(roundTripNanos / 2);
+        return new Sample(Duration.between(middle, serverTime).toMillis(), roundTripNanos);
+    }
+
+    /**
+     * @return offset applied to the local clock, zero before the first estimate
+     */
+    public Duration getOffset() {
+        Sample sample = current;
+        return sample == null ? Duration.ZERO : Duration.ofMillis(sample.offsetMillis);
+    }
+
+    /**
+     * @return upper bound of the error of the offset, half the round trip of its
+     *         sample, null before the first estimate
+     */
+    @Nullable
+    public Duration getMaxError() {
+        Sample sample = current;
+        return sample == null ? null : Duration.ofNanos(sample.roundTripNanos / 2);
+    }
+
+    /**
+     * Stops estimating and puts the local clock back.
+     */
+    @Override
+    public void close() {
+        rounds.shutdownNow();
+        if (current != null) {
+            ClockProvider.setClock(baseClock);
+        }
+    }
+
+    private static final class Sample {
+        private final long offsetMillis;
+        private final long roundTripNanos;
+
+        private Sample(long offsetMillis, long roundTripNanos) {
+            this.offsetMillis = offsetMillis;
+            this.roundTripNanos = roundTripNanos;
+        }
+    }
+}
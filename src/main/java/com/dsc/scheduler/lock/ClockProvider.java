@@ -17,9 +17,12 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
-/** Enables to change Clock for all ShedLock classes */
+/**
+ * Enables to change Clock for all ShedLock classes. Replaced at runtime by the
+ * {@link ClockOffsetEstimator}, hence volatile.
+ */
 public class ClockProvider {
-    private static Clock clock = Clock.systemUTC();
+    private static volatile Clock clock = Clock.systemUTC();
 
     public static void setClock(Clock clock) {
         ClockProvider.clock = clock;
@@ -13,22 +13,111 @@
  */
 package com.dsc.scheduler.lock;
 
+import com.dsc.scheduler.support.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static com.dsc.scheduler.lock.LockAssert.alreadyLockedBy;
 import static java.util.Objects.requireNonNull;
 
-/** Default {@link LockingTaskExecutor} implementation. */
+/**
+ * Default {@link LockingTaskExecutor} implementation.
+ *
+ * <p>
+ * When created with an {@link AsyncLockProvider}, {@link #executeWithLockAsync}
+ * and {@link #executeAsyncWithLock} acquire and release the lock without blocking
+ * the calling thread and run the task on the given executor once the lock is acquired.
+ * The executor can be resolved in the calling thread, e.g. to run the task in the
+ * same pool as the caller.
+ *
+ * <p>
+ * The lock of an asynchronous task is released in the thread completing its stage,
+ * e.g. an event loop of a reactive client. A lock released by blocking calls is
+ * therefore released on the task executor, or the unlock executor when created
+ * without an {@link AsyncLockProvider}, unless the task completes before returning.
+ */
 public class DefaultLockingTaskExecutor implements LockingTaskExecutor {
     private static final Logger logger = LoggerFactory.getLogger(DefaultLockingTaskExecutor.class);
     private final LockProvider lockProvider;
+    @Nullable
+    private final LockLeaseRenewer leaseRenewer;
+    @Nullable
+    private final AsyncLockProvider asyncLockProvider;
+    @Nullable
+    private final Supplier<? extends Executor> taskExecutor;
+    @Nullable
+    private final Supplier<? extends Executor> unlockExecutor;
 
     public DefaultLockingTaskExecutor(LockProvider lockProvider) {
+        this(lockProvider, null);
+    }
+
+    /**
+     * @param lockProvider lock provider
+     * @param leaseRenewer renews locks of running tasks, null to keep the lock for lockAtMostFor only
+     */
+    public DefaultLockingTaskExecutor(LockProvider lockProvider, @Nullable LockLeaseRenewer leaseRenewer) {
+        this.lockProvider = requireNonNull(lockProvider);
+        this.leaseRenewer = leaseRenewer;
+        this.asyncLockProvider = null;
+        this.taskExecutor = null;
+        this.unlockExecutor = null;
+    }
+
+    /**
+     * @param lockProvider lock provider
+     * @param leaseRenewer renews locks of running tasks, null to keep the lock for lockAtMostFor only
+     * @param unlockExecutor called in the thread starting an asynchronous execution, returns the
+     *                       executor releasing its lock if the task completes in another thread,
+     *                       null to release it in that thread
+     */
+    public DefaultLockingTaskExecutor(LockProvider lockProvider, @Nullable LockLeaseRenewer leaseRenewer,
+                                      Supplier<? extends Executor> unlockExecutor) {
         this.lockProvider = requireNonNull(lockProvider);
+        this.leaseRenewer = leaseRenewer;
+        this.asyncLockProvider = null;
+        this.taskExecutor = null;
+        this.unlockExecutor = requireNonNull(unlockExecutor);
+    }
+
+    /**
+     * @param lockProvider lock provider
+     * @param leaseRenewer renews locks of running tasks, null to keep the lock for lockAtMostFor only
+     * @param asyncLockProvider lock provider of the asynchronous executions, has to lock the same store
+     * @param taskExecutor runs the tasks of the asynchronous executions once their lock is acquired
+     */
+    public DefaultLockingTaskExecutor(LockProvider lockProvider, @Nullable LockLeaseRenewer leaseRenewer,
+                                      AsyncLockProvider asyncLockProvider, Executor taskExecutor) {
+        this(lockProvider, leaseRenewer, asyncLockProvider, constant(requireNonNull(taskExecutor)));
+    }
+
+    /**
+     * @param lockProvider lock provider
+     * @param leaseRenewer renews locks of running tasks, null to keep the lock for lockAtMostFor only
+     * @param asyncLockProvider lock provider of the asynchronous executions, has to lock the same store
+     * @param taskExecutor called in the thread starting an asynchronous execution, returns the
+     *                     executor running its task once the lock is acquired
+     */
+    public DefaultLockingTaskExecutor(LockProvider lockProvider, @Nullable LockLeaseRenewer leaseRenewer,
+                                      AsyncLockProvider asyncLockProvider, Supplier<? extends Executor> taskExecutor) {
+        this.lockProvider = requireNonNull(lockProvider);
+        this.leaseRenewer = leaseRenewer;
+        this.asyncLockProvider = requireNonNull(asyncLockProvider);
+        this.taskExecutor = requireNonNull(taskExecutor);
+        this.unlockExecutor = taskExecutor;
+    }
+
+    private static Supplier<Executor> constant(Executor executor) {
+        return () -> executor;
     }
 
     @Override
@@ -63,6 +152,9 @@ public class DefaultLockingTaskExecutor implements LockingTaskExecutor {
 
         Optional<SimpleLock> lock = lockProvider.lock(lockConfig);
         if (lock.isPresent()) {
+            if (leaseRenewer != null) {
+                lock = Optional.of(leaseRenewer.watch(lock.get(), lockConfig));
+            }
             try {
                 LockAssert.startLock(lockName);
                 LockExtender.startLock(lock.get());
@@ -80,19 +172,190 @@ public class DefaultLockingTaskExecutor implements LockingTaskExecutor {
                     logger.warn("No active lock, please report this as a bug.");
                     lock.get().unlock();
                 }
-                if (logger.isDebugEnabled()) {
-                    Instant lockAtLeastUntil = lockConfig.getLockAtLeastUntil();
-                    Instant now = ClockProvider.now();
-                    if (lockAtLeastUntil.isAfter(now)) {
-                        logger.debug("Task finished, lock '{}' will be released at {}", lockName, lockAtLeastUntil);
-                    } else {
-                        logger.debug("Task finished, lock '{}' released", lockName);
-                    }
-                }
+                logReleased(lockConfig);
             }
         } else {
             logger.debug("Not executing '{}'. It's locked.", lockName);
             return TaskResult.notExecuted();
         }
     }
+
+    /**
+     * Falls back to the blocking execution in the calling thread when created
+     * without an {@link AsyncLockProvider} and for nested locks. Otherwise the stage
+     * completes once the task has finished and its lock has been released.
+     */
+    @Override
+    public <T> CompletionStage<TaskResult<T>> executeWithLockAsync(TaskWithResult<T> task, LockConfiguration lockConfig) {
+        if (asyncLockProvider == null || alreadyLockedBy(lockConfig.getName())) {
+            return LockingTaskExecutor.super.executeWithLockAsync(task, lockConfig);
+        }
+        return lockAsync(() -> CompletableFuture.completedFuture(task.call()), lockConfig);
+    }
+
+    /**
+     * Acquires the lock like {@link #executeWithLockAsync}, in the calling thread
+     * when created without an {@link AsyncLockProvider}. Cancelling the returned
+     * stage cancels the stage of the task and releases the lock.
+     */
+    @Override
+    public <T> CompletionStage<TaskResult<T>> executeAsyncWithLock(AsyncTask<T> task, LockConfiguration lockConfig) {
+        String lockName = lockConfig.getName();
+        if (alreadyLockedBy(lockName)) {
+            logger.debug("Already locked '{}'", lockName);
+            CompletableFuture<TaskResult<T>> result = new CompletableFuture<>();
+            try {
+                task.call().whenComplete((value, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(unwrap(ex));
+                    } else {
+                        result.complete(TaskResult.result(value));
+                    }
+                });
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+            return result;
+        }
+        if (asyncLockProvider != null) {
+            return lockAsync(task, lockConfig);
+        }
+        CompletableFuture<TaskResult<T>> result = new CompletableFuture<>();
+        try {
+            Optional<SimpleLock> lock = lockProvider.lock(lockConfig);
+            if (lock.isPresent()) {
+                executeLocked(task, lockConfig, lock.get(), result, unlockExecutor != null ? unlockExecutor.get() : null);
+            } else {
+                logger.debug("Not executing '{}'. It's locked.", lockName);
+                result.complete(TaskResult.notExecuted());
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T> CompletionStage<TaskResult<T>> lockAsync(AsyncTask<T> task, LockConfiguration lockConfig) {
+        CompletableFuture<TaskResult<T>> result = new CompletableFuture<>();
+        Executor executor = taskExecutor.get();
+        asyncLockProvider.lockAsync(lockConfig).whenComplete((lock, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(unwrap(ex));
+            } else if (!lock.isPresent()) {
+                logger.debug("Not executing '{}'. It's locked.", lockConfig.getName());
+                result.complete(TaskResult.notExecuted());
+            } else if (result.isCancelled()) {
+                unlockAsync(lock.get(), null);
+            } else {
+                try {
+                    executor.execute(() -> executeLocked(task, lockConfig, lock.get(), result, executor));
+                } catch (RuntimeException e) {
+                    unlockAsync(lock.get(), null);
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the task with the lock active in the current thread and releases the
+     * lock once the stage of the task completes, on the unlock executor if the stage
+     * completes in another thread.
+     */
+    private <T> void executeLocked(AsyncTask<T> task, LockConfiguration lockConfig, SimpleLock acquired,
+                                   CompletableFuture<TaskResult<T>> result, @Nullable Executor unlockExecutor) {
+        String lockName = lockConfig.getName();
+        SimpleLock lock = leaseRenewer != null ? leaseRenewer.watch(acquired, lockConfig) : acquired;
+        CompletionStage<T> stage = null;
+        Throwable failure = null;
+        SimpleLock activeLock;
+        try {
+            LockAssert.startLock(lockName);
+            LockExtender.startLock(lock);
+            logger.debug("Locked '{}', lock will be held at most until {}", lockName, lockConfig.getLockAtMostUntil());
+            stage = task.call();
+        } catch (Throwable throwable) {
+            failure = throwable;
+        } finally {
+            LockAssert.endLock();
+            activeLock = LockExtender.endLock();
+        }
+        if (activeLock == null) {
+            logger.warn("No active lock, please report this as a bug.");
+            activeLock = lock;
+        }
+        SimpleLock release = activeLock;
+        if (stage == null) {
+            release(release, lockConfig, result, failure, null, null);
+            return;
+        }
+        CompletableFuture<T> work = stage.toCompletableFuture();
+        result.whenComplete((ignored, ex) -> {
+            if (result.isCancelled()) {
+                work.cancel(false);
+            }
+        });
+        Executor executor = work.isDone() ? null : unlockExecutor;
+        work.whenComplete((value, ex) -> release(release, lockConfig, result, ex == null ? null : unwrap(ex), value, executor));
+    }
+
+    private static <T> void release(SimpleLock lock, LockConfiguration lockConfig, CompletableFuture<TaskResult<T>> result,
+                                    @Nullable Throwable taskFailure, @Nullable T value, @Nullable Executor unlockExecutor) {
+        unlockAsync(lock, unlockExecutor).whenComplete((ignored, unlockFailure) -> {
+            if (taskFailure != null) {
+                if (unlockFailure != null && unlockFailure != taskFailure) {
+                    taskFailure.addSuppressed(unlockFailure);
+                }
+                result.completeExceptionally(taskFailure);
+            } else if (unlockFailure != null) {
+                result.completeExceptionally(unlockFailure);
+            } else {
+                logReleased(lockConfig);
+                result.complete(TaskResult.result(value));
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * Locks renewed by the {@link LockLeaseRenewer} and locks of blocking providers
+     * are not asynchronous, they are released on the given executor, in the calling
+     * thread without one or if the executor rejects the unlock.
+     */
+    private static CompletionStage<Void> unlockAsync(SimpleLock lock, @Nullable Executor executor) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            if (lock instanceof AsyncSimpleLock) {
+                return ((AsyncSimpleLock) lock).unlockAsync();
+            }
+            if (executor != null) {
+                try {
+                    return CompletableFuture.runAsync(lock::unlock, executor);
+                } catch (RejectedExecutionException e) {
+                    logger.debug("Unlock rejected by {}, releasing the lock in the calling thread", executor);
+                }
+            }
+            lock.unlock();
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static void logReleased(LockConfiguration lockConfig) {
+        if (logger.isDebugEnabled()) {
+            Instant lockAtLeastUntil = lockConfig.getLockAtLeastUntil();
+            Instant now = ClockProvider.now();
+            if (lockAtLeastUntil.isAfter(now)) {
+                logger.debug("Task finished, lock '{}' will be released at {}", lockConfig.getName(), lockAtLeastUntil);
+            } else {
+                logger.debug("Task finished, lock '{}' released", lockConfig.getName());
+            }
+        }
+    }
 }
@@ -65,6 +65,10 @@ public class LockConfiguration {
         }
     }
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.NonNull;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lock settings of a job resolved once, when the job is registered. Each run only
+ * stamps them with the current time, see {@link #newConfiguration()}, instead of
+ * looking up the annotation and parsing its durations again.
+ *
+ * @author typhoon
+ **/
+public final class LockConfigurationTemplate {
+    private final String name;
+    private final Duration lockAtMostFor;
+    private final Duration lockAtLeastFor;
+
+    /**
+     * Checks the settings like {@link LockConfiguration} does, so a job with invalid
+     * settings fails when it is registered rather than on every run.
+     *
+     * @param name lock name
+     * @param lockAtMostFor master lock time
+     * @param lockAtLeastFor least lock time
+     */
+    public LockConfigurationTemplate(@NonNull String name, @NonNull Duration lockAtMostFor, @NonNull Duration lockAtLeastFor) {
+        this.name = requireNonNull(name);
+        this.lockAtMostFor = requireNonNull(lockAtMostFor);
+        this.lockAtLeastFor = requireNonNull(lockAtLeastFor);
+        newConfiguration();
+    }
+
+    /**
+     * @return configuration of a run starting now
+     */
+    @NonNull
+    public LockConfiguration newConfiguration() {
+        return new LockConfiguration(ClockProvider.now(), name, lockAtMostFor, lockAtLeastFor);
+    }
+
+    /**
+     * Keeps the lock for at least the given time after each run. A shorter lock lets
+     * a node firing up to that time late find the lock of a finished run released and
+     * run the job again, e.g. with the lock jitter.
+     *
+     * @param minimum least lock time required by the schedule
+     * @return this template, or a copy with lockAtLeastFor raised to the minimum
+     */
+    @NonNull
+    public LockConfigurationTemplate withLockAtLeastFor(@NonNull Duration minimum) {
+        if (lockAtLeastFor.compareTo(minimum) >= 0) {
+            return this;
+        }
+        return new LockConfigurationTemplate(name, lockAtMostFor, minimum);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getLockAtMostFor() {
+        return lockAtMostFor;
+    }
+
+    public Duration getLockAtLeastFor() {
+        return lockAtLeastFor;
+    }
+
+    @Override
+    public String toString() {
+        return "LockConfigurationTemplate{" + "name='" + name + '\'' + ", lockAtMostFor=" + lockAtMostFor
+                + ", lockAtLeastFor=" + lockAtLeastFor + '}';
+    }
+}
@@ -10,8 +10,9 @@ import java.util.Optional;
 
 public final class LockExtender {
     // Using deque here instead of a simple thread local to be able to handle nested
-    // locks.
-    private static final ThreadLocal<Deque<SimpleLock>> activeLocks = ThreadLocal.withInitial(LinkedList::new);
+    // locks. Null initial value as in LockAssert, so that threads which never lock,
+    // e.g. short lived virtual threads, do not get a deque.
+    private static final ThreadLocal<Deque<SimpleLock>> activeLocks = ThreadLocal.withInitial(() -> null);
 
     private LockExtender() {}
 
@@ -30,33 +31,39 @@ public final class LockExtender {
      * @param lockAtMostFor most
      */
     public static void extendActiveLock(Duration lockAtMostFor, Duration lockAtLeastFor) {
-        SimpleLock lock = locks().peekLast();
+        Deque<SimpleLock> locks = activeLocks.get();
+        SimpleLock lock = locks != null ? locks.peekLast() : null;
         if (lock == null) throw new NoActiveLockException();
         Optional<SimpleLock> newLock = lock.extend(lockAtMostFor, lockAtLeastFor);
         if (newLock.isPresent()) {
             // removing and adding here should be safe as it's a thread local variable and
             // the changes are
             // only visible in the current thread.
-            locks().removeLast();
-            locks().addLast(newLock.get());
+            locks.removeLast();
+            locks.addLast(newLock.get());
         } else {
             throw new LockCanNotBeExtendedException();
         }
     }
 
-    private static Deque<SimpleLock> locks() {
-        return activeLocks.get();
-    }
-
     static void startLock(SimpleLock lock) {
-        locks().addLast(lock);
+        Deque<SimpleLock> locks = activeLocks.get();
+        if (locks == null) {
+            locks = new LinkedList<>();
+            activeLocks.set(locks);
+        }
+        locks.addLast(lock);
     }
 
     @Nullable
     static SimpleLock endLock() {
-        SimpleLock lock = locks().pollLast();
+        Deque<SimpleLock> locks = activeLocks.get();
+        if (locks == null) {
+            return null;
+        }
+        SimpleLock lock = locks.pollLast();
         // we want to clean up the thread local variable when there are no locks
-        if (locks().isEmpty()) {
+        if (locks.isEmpty()) {
             activeLocks.remove();
         }
         return lock;
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Watchdog which keeps the locks of running tasks alive. Every watched lock is
+ * extended by lockAtMostFor each time a fraction of lockAtMostFor passes, so a
+ * short lockAtMostFor can be used for long running tasks and a lock held by a
+ * dead node expires quickly. The remaining lockAtLeastFor is kept on every renewal.
+ *
+ * <p>
+ * A single shared timer thread triggers the renewals, which call the lock store on
+ * a small pool of renewal threads, so a slow store call does not delay the renewal
+ * of the other locks. A call still running when the next renewal is due is
+ * interrupted and tried again, two attempts remain before the lock expires.
+ * Renewal stops as soon as the watched lock is unlocked, or when it could not be
+ * extended because it has already expired. Requires a lock provider supporting
+ * lock extension.
+ *
+ * @author typhoon
+ **/
+public class LockLeaseRenewer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LockLeaseRenewer.class);
+
+    /** Renew after a third of lockAtMostFor, leaving two attempts before the lock expires. */
+    public static final double DEFAULT_RENEWAL_FRACTION = 1.0 / 3;
+
+    public static final int DEFAULT_RENEWAL_THREADS = 4;
+
+    private final double renewalFraction;
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor renewalExecutor;
+
+    public LockLeaseRenewer() {
+        this(DEFAULT_RENEWAL_FRACTION);
+    }
+
+    /**
+     * @param renewalFraction part of lockAtMostFor after which the lock is renewed, between 0 and 1
+     */
+    public LockLeaseRenewer(double renewalFraction) {
+        this(renewalFraction, DEFAULT_RENEWAL_THREADS);
+    }
+
+    /**
+     * @param renewalFraction part of lockAtMostFor after which the lock is renewed, between 0 and 1
+     * @param renewalThreads threads calling the lock store, at most this many renewals run at the same time
+     */
+    public LockLeaseRenewer(double renewalFraction, int renewalThreads) {
+        if (!(renewalFraction > 0 && renewalFraction < 1)) {
+            throw new IllegalArgumentException("renewalFraction has to be between 0 and 1, was " + renewalFraction);
+        }
+        if (renewalThreads < 1) {
+            throw new IllegalArgumentException("renewalThreads has to be positive, was " + renewalThreads);
+        }
+        this.renewalFraction = renewalFraction;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dcs-lock-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renewalExecutor = new ThreadPoolExecutor(renewalThreads, renewalThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "dcs-lock-renewal-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.renewalExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts renewing the lock. The returned lock has to be used instead of the
+     * original one, unlocking it stops the renewal.
+     *
+     * @param lock acquired lock
+     * @param lockConfiguration configuration the lock has been acquired with
+     * @return lock renewed in the background
+     */
+    @NonNull
+    public SimpleLock watch(@NonNull SimpleLock lock, @NonNull LockConfiguration lockConfiguration) {
+        RenewedLock renewedLock = new RenewedLock(requireNonNull(lock), requireNonNull(lockConfiguration));
+        renewedLock.schedule();
+        return renewedLock;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        renewalExecutor.shutdownNow();
+    }
+
+    long getRenewalPeriodMillis(Duration lockAtMostFor) {
+        return Math.max(1, (long) (lockAtMostFor.toMillis() * renewalFraction));
+    }
+
+    private final class RenewedLock implements SimpleLock {
+        private final String name;
+        private SimpleLock delegate;
+        private Duration lockAtMostFor;
+        private Instant lockAtLeastUntil;
+        private ScheduledFuture<?> renewal;
+        // only touched by the timer thread
+        private Future<?> runningRenewal;
+        private boolean active = true;
+        private final ReentrantLock mutex = new ReentrantLock();
+
+        private RenewedLock(SimpleLock delegate, LockConfiguration lockConfiguration) {
+            this.name = lockConfiguration.getName();
+            this.delegate = delegate;
+            this.lockAtMostFor = lockConfiguration.getLockAtMostFor();
+            this.lockAtLeastUntil = lockConfiguration.getLockAtLeastUntil();
+        }
+
+        private void schedule() {
+            mutex.lock();
+            try {
+                long period = getRenewalPeriodMillis(lockAtMostFor);
+                renewal = timer.scheduleAtFixedRate(() -> submitRenewal(period), period, period, TimeUnit.MILLISECONDS);
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        private void cancel() {
+            mutex.lock();
+            try {
+                if (renewal != null) {
+                    renewal.cancel(false);
+                    renewal = null;
+                }
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        /**
+         * Runs in the timer thread, the store is called by the renewal executor. A
+         * renewal still running a period later is interrupted and tried again.
+         */
+        private void submitRenewal(long period) {
+            if (runningRenewal != null && runningRenewal.cancel(true)) {
+                logger.warn("Renewal of lock '{}' did not finish within {}ms, trying again", name, period);
+            }
+            runningRenewal = renewalExecutor.submit(this::renew);
+        }
+
+        private void renew() {
+            // held by the job unlocking or extending the lock, or by a renewal which ignored the interrupt
+            if (!mutex.tryLock()) {
+                return;
+            }
+            try {
+                if (!active) {
+                    return;
+                }
+                Instant now = ClockProvider.now();
+                Duration lockAtLeastFor = lockAtLeastUntil.isAfter(now) ? Duration.between(now, lockAtLeastUntil) : Duration.ZERO;
+                try {
+                    Optional<SimpleLock> renewed = delegate.extend(lockAtMostFor, lockAtLeastFor);
+                    if (renewed.isPresent()) {
+                        delegate = renewed.get();
+                        logger.trace("Renewed lock '{}' for {}", name, lockAtMostFor);
+                    } else {
+                        logger.warn("Lock '{}' could not be renewed, it has most likely expired", name);
+                        active = false;
+                        cancel();
+                    }
+                } catch (UnsupportedOperationException e) {
+                    logger.warn("Lock provider of lock '{}' does not support lock extension, not renewing it", name);
+                    cancel();
+                } catch (RuntimeException e) {
+                    // the lock is still valid, try again in the next period
+                    logger.warn("Can not renew lock '{}'", name, e);
+                }
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        @Override
+        public void unlock() {
+            mutex.lock();
+            try {
+                cancel();
+                if (active) {
+                    active = false;
+                    delegate.unlock();
+                } else {
+                    logger.debug("Lock '{}' has been lost, not unlocking it", name);
+                }
+            } finally {
+                mutex.unlock();
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            mutex.lock();
+            try {
+                if (!active) {
+                    return Optional.empty();
+                }
+                Optional<SimpleLock> extended = delegate.extend(lockAtMostFor, lockAtLeastFor);
+                cancel();
+                if (extended.isPresent()) {
+                    delegate = extended.get();
+                    this.lockAtMostFor = lockAtMostFor;
+                    this.lockAtLeastUntil = ClockProvider.now().plus(lockAtLeastFor);
+                    schedule();
+                    return Optional.of(this);
+                } else {
+                    active = false;
+                    return Optional.empty();
+                }
+            } finally {
+                mutex.unlock();
+            }
+        }
+    }
+}
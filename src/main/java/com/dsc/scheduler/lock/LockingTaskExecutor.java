@@ -16,6 +16,10 @@ package com.dsc.scheduler.lock;
 
 import com.dsc.scheduler.support.Nullable;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 public interface LockingTaskExecutor {
     /** Executes task if it's not already running.
      * @param lockConfig config
@@ -43,6 +47,47 @@ public interface LockingTaskExecutor {
         throw new UnsupportedOperationException();
     }
 
+    /** Executes task without blocking the calling thread while the lock is acquired
+     * and released, if supported by the implementation. By default the task is
+     * executed by {@link #executeWithLock(TaskWithResult, LockConfiguration)} in
+     * the calling thread and the returned stage is already completed.
+     *
+     * @param lockConfig config
+     * @param task task
+     * @param <T> genericity
+     * @return stage completed with the task result, or exceptionally with the failure of the task
+     */
+    default <T> CompletionStage<TaskResult<T>> executeWithLockAsync(TaskWithResult<T> task, LockConfiguration lockConfig) {
+        CompletableFuture<TaskResult<T>> result = new CompletableFuture<>();
+        try {
+            result.complete(executeWithLock(task, lockConfig));
+        } catch (Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+        return result;
+    }
+
+    /** Executes a task which completes asynchronously, e.g. a reactive one. The lock
+     * is held until the stage returned by the task completes. By default the task is
+     * executed by {@link #executeWithLockAsync(TaskWithResult, LockConfiguration)},
+     * waiting for its stage while the lock is held.
+     *
+     * @param lockConfig config
+     * @param task task
+     * @param <T> genericity
+     * @return stage completed with the result of the task stage once the lock is
+     *         released, or exceptionally with the failure of the task
+     */
+    default <T> CompletionStage<TaskResult<T>> executeAsyncWithLock(AsyncTask<T> task, LockConfiguration lockConfig) {
+        return executeWithLockAsync(() -> {
+            try {
+                return task.call().toCompletableFuture().join();
+            } catch (CompletionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        }, lockConfig);
+    }
+
     @FunctionalInterface
     interface Task {
         void call() throws Throwable;
@@ -54,6 +99,15 @@ public interface LockingTaskExecutor {
         T call() throws Throwable;
     }
 
+    @FunctionalInterface
+    interface AsyncTask<T> {
+        /**
+         * @return stage completed once the work of the task has finished
+         * @throws Throwable if the task can not be started
+         */
+        CompletionStage<T> call() throws Throwable;
+    }
+
     final class TaskResult<T> {
         private final boolean executed;
 
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock;
+
+import com.dsc.scheduler.support.NonNull;
+
+import java.time.Instant;
+
+/**
+ * Reads the clock of the lock store, one round trip per call. Used by the
+ * {@link ClockOffsetEstimator} to align {@link ClockProvider} with the store, so
+ * that the timestamps of all nodes agree without a server time call in each lock
+ * operation.
+ *
+ * @author typhoon
+ **/
+public interface ServerTimeSource {
+
+    /**
+     * @return current time of the server
+     */
+    @NonNull
+    Instant serverTime();
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.AsyncLockProvider;
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.support.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link AsyncLockProvider} over a blocking {@link LockProvider}, e.g. the JDBC
+ * one. The lock store calls run on a few daemon threads of the adapter, so a slow
+ * lock store occupies them instead of the threads of the caller.
+ *
+ * <p>
+ * Only a bounded number of calls wait for a thread. A lock attempt finding the
+ * queue full is skipped as if the lock was held elsewhere, so a slow lock store
+ * delays no run behind a backlog of older attempts, the job runs again on its
+ * next trigger. An unlock or an extension finding the queue full runs in the
+ * calling thread instead, skipping it would keep the lock held.
+ *
+ * <p>
+ * The blocking operations of the returned locks call the wrapped lock directly.
+ *
+ * @author typhoon
+ **/
+public class AsyncLockProviderAdapter implements AsyncLockProvider, AutoCloseable {
+    public static final int DEFAULT_THREADS = 2;
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLockProviderAdapter.class);
+
+    private final LockProvider lockProvider;
+    private final ThreadPoolExecutor executor;
+
+    public AsyncLockProviderAdapter(@NonNull LockProvider lockProvider) {
+        this(lockProvider, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param lockProvider blocking lock provider
+     * @param threads number of threads calling the lock store
+     */
+    public AsyncLockProviderAdapter(@NonNull LockProvider lockProvider, int threads) {
+        this(lockProvider, threads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param lockProvider blocking lock provider
+     * @param threads number of threads calling the lock store
+     * @param queueCapacity number of calls waiting for a thread
+     */
+    public AsyncLockProviderAdapter(@NonNull LockProvider lockProvider, int threads, int queueCapacity) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads has to be positive, was " + threads);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity has to be positive, was " + queueCapacity);
+        }
+        this.lockProvider = requireNonNull(lockProvider);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "dcs-lock-io-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> lockProvider.lock(lockConfiguration).map(this::adapt), executor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Not locking '{}', {} lock store calls are already waiting", lockConfiguration.getName(),
+                    executor.getQueue().size());
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    }
+
+    /**
+     * @return number of calls waiting for a thread
+     */
+    public int getQueuedCalls() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private AsyncSimpleLock adapt(SimpleLock lock) {
+        return new AdaptedLock(lock);
+    }
+
+    private final class AdaptedLock implements AsyncSimpleLock {
+        private final SimpleLock delegate;
+
+        private AdaptedLock(SimpleLock delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void unlock() {
+            delegate.unlock();
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            return delegate.extend(lockAtMostFor, lockAtLeastFor).map(AsyncLockProviderAdapter.this::adapt);
+        }
+
+        @Override
+        public CompletionStage<Void> unlockAsync() {
+            return callAsync(() -> {
+                delegate.unlock();
+                return null;
+            });
+        }
+
+        @Override
+        public CompletionStage<Optional<AsyncSimpleLock>> extendAsync(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            return callAsync(() -> delegate.extend(lockAtMostFor, lockAtLeastFor).map(AsyncLockProviderAdapter.this::adapt));
+        }
+    }
+
+    private <T> CompletableFuture<T> callAsync(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+            return result;
+        }
+    }
+}
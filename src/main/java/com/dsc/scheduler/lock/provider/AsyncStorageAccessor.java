@@ -0,0 +1,71 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.LockConfiguration;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non blocking variant of {@link StorageAccessor}, for storages with an
+ * asynchronous client, e.g. a database accessed through R2DBC. The operations
+ * have the semantics of their {@link StorageAccessor} counterparts.
+ *
+ * @author typhoon
+ * @see AsyncStorageBasedLockProvider
+ **/
+public interface AsyncStorageAccessor {
+
+    /**
+     * @param lockConfiguration LockConfiguration
+     * @return stage completed with true if inserted, see {@link StorageAccessor#insertRecord(LockConfiguration)}
+     */
+    CompletionStage<Boolean> insertRecord(LockConfiguration lockConfiguration);
+
+    /**
+     * @param lockConfiguration LockConfiguration
+     * @return stage completed with true if updated, see {@link StorageAccessor#updateRecord(LockConfiguration)}
+     */
+    CompletionStage<Boolean> updateRecord(LockConfiguration lockConfiguration);
+
+    /**
+     * @return see {@link StorageAccessor#updateCreatesRecord()}
+     */
+    default boolean updateCreatesRecord() {
+        return false;
+    }
+
+    /**
+     * @param lockConfiguration LockConfiguration of the failed attempt
+     * @return stage completed with the remaining time the lock is held by someone
+     *         else, see {@link StorageAccessor#getRemainingLockTime(LockConfiguration)}
+     */
+    default CompletionStage<Optional<Duration>> getRemainingLockTime(LockConfiguration lockConfiguration) {
+        return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    CompletionStage<Void> unlock(LockConfiguration lockConfiguration);
+
+    /**
+     * @param lockConfiguration LockConfiguration
+     * @return stage completed with true if extended, see {@link StorageAccessor#extend(LockConfiguration)}
+     * @throws UnsupportedOperationException if the storage does not support extension
+     */
+    default CompletionStage<Boolean> extend(LockConfiguration lockConfiguration) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.AbstractAsyncSimpleLock;
+import com.dsc.scheduler.lock.AsyncLockProvider;
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.support.NonNull;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non blocking counterpart of {@link StorageBasedLockProvider} over an
+ * {@link AsyncStorageAccessor}. Runs the same steps: inserts the lock record
+ * unless it is known to exist, otherwise updates it if the lock has expired, and
+ * remembers locks held by others in {@link KnownHeldLocks}. No thread waits for
+ * the storage, the stages are completed by the client of the storage.
+ *
+ * @author typhoon
+ **/
+public class AsyncStorageBasedLockProvider implements AsyncLockProvider {
+    private final AsyncStorageAccessor storageAccessor;
+    private final LockRecordRegistry lockRecordRegistry = new LockRecordRegistry();
+    private final KnownHeldLocks knownHeldLocks = new KnownHeldLocks();
+
+    public AsyncStorageBasedLockProvider(@NonNull AsyncStorageAccessor storageAccessor) {
+        this.storageAccessor = requireNonNull(storageAccessor);
+    }
+
+    /** Clears cache of existing lock records and of locks known to be held. */
+    public void clearCache() {
+        lockRecordRegistry.clear();
+        knownHeldLocks.clear();
+    }
+
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return doLock(lockConfiguration).thenCompose(lockObtained -> {
+            if (lockObtained) {
+                knownHeldLocks.acquired(lockConfiguration.getName());
+                return CompletableFuture.completedFuture(
+                        Optional.of(new AsyncStorageLock(lockConfiguration, storageAccessor, knownHeldLocks)));
+            }
+            return storageAccessor.getRemainingLockTime(lockConfiguration).thenApply(remaining -> {
+                remaining.ifPresent(time -> knownHeldLocks.held(lockConfiguration, time));
+                return Optional.empty();
+            });
+        });
+    }
+
+    /**
+     * See {@link StorageBasedLockProvider#doLock(LockConfiguration)}.
+     */
+    private CompletionStage<Boolean> doLock(LockConfiguration lockConfiguration) {
+        if (storageAccessor.updateCreatesRecord()) {
+            return storageAccessor.updateRecord(lockConfiguration);
+        }
+        String name = lockConfiguration.getName();
+        if (lockRecordRegistry.lockRecordRecentlyCreated(name)) {
+            return storageAccessor.updateRecord(lockConfiguration);
+        }
+        return storageAccessor.insertRecord(lockConfiguration).thenCompose(inserted -> {
+            lockRecordRegistry.addLockRecord(name);
+            if (inserted) {
+                return CompletableFuture.completedFuture(true);
+            }
+            CompletableFuture<Boolean> updated = new CompletableFuture<>();
+            storageAccessor.updateRecord(lockConfiguration).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    // the storage may not be ready yet, try to insert again next time
+                    lockRecordRegistry.removeLockRecord(name);
+                    updated.completeExceptionally(ex);
+                } else {
+                    updated.complete(result);
+                }
+            });
+            return updated;
+        });
+    }
+
+    private static final class AsyncStorageLock extends AbstractAsyncSimpleLock {
+        private final AsyncStorageAccessor storageAccessor;
+        private final KnownHeldLocks knownHeldLocks;
+
+        private AsyncStorageLock(LockConfiguration lockConfiguration, AsyncStorageAccessor storageAccessor,
+                                 KnownHeldLocks knownHeldLocks) {
+            super(lockConfiguration);
+            this.storageAccessor = storageAccessor;
+            this.knownHeldLocks = knownHeldLocks;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            return storageAccessor.unlock(lockConfiguration)
+                    .whenComplete((result, ex) -> knownHeldLocks.released(lockConfiguration.getName()));
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            return storageAccessor.extend(newConfiguration).thenApply(extended -> {
+                if (extended) {
+                    return Optional.of(new AsyncStorageLock(newConfiguration, storageAccessor, knownHeldLocks));
+                }
+                knownHeldLocks.released(lockConfiguration.getName());
+                return Optional.empty();
+            });
+        }
+    }
+}
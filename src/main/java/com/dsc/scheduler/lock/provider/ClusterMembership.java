@@ -0,0 +1,52 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.support.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Registry of the nodes of the cluster, kept in the lock store. Every node
+ * refreshes its registration periodically, a node which stops doing so drops out
+ * of the live members once its registration expires.
+ *
+ * @author typhoon
+ * @see ConsistentHashLockProvider
+ **/
+public interface ClusterMembership {
+
+    /**
+     * Registers the node or refreshes its registration.
+     *
+     * @param nodeId unique id of the node
+     * @param ttl how long the node is considered alive without another heartbeat
+     */
+    void heartbeat(@NonNull String nodeId, @NonNull Duration ttl);
+
+    /**
+     * @return ids of the live nodes and the instant their registration expires
+     */
+    @NonNull
+    Map<String, Instant> liveMembers();
+
+    /**
+     * Removes the registration of the node.
+     *
+     * @param nodeId unique id of the node
+     */
+    void leave(@NonNull String nodeId);
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.support.NonNull;
+import com.dsc.scheduler.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spreads job executions over the cluster. Every node registers in the
+ * {@link ClusterMembership} and each lock name is assigned to one of the live
+ * nodes by a {@link ConsistentHashRing}. Only the owner of a lock name calls the
+ * wrapped {@link LockProvider}, the other nodes skip the lock store round trip.
+ * If the owner stopped sending heartbeats, the other nodes contend for the lock
+ * as usual until the ring is refreshed without it.
+ *
+ * <p>
+ * Nodes may briefly disagree about the ring when members join or leave, the
+ * wrapped lock provider still guarantees that a job runs on one node only.
+ *
+ * @author typhoon
+ **/
+public class ConsistentHashLockProvider implements LockProvider, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConsistentHashLockProvider.class);
+
+    private final LockProvider lockProvider;
+    private final ClusterMembership membership;
+    private final String nodeId;
+    private final Duration memberLease;
+    private final long heartbeatMillis;
+    private final ScheduledExecutorService heartbeats;
+    private final ReentrantLock mutex = new ReentrantLock();
+
+    private volatile Members members = new Members(ConsistentHashRing.empty(), Collections.emptyMap());
+    private volatile boolean started;
+
+    public ConsistentHashLockProvider(@NonNull LockProvider lockProvider, @NonNull ClusterMembership membership,
+                                      @NonNull Duration memberLease) {
+        this(lockProvider, membership, defaultNodeId(), memberLease);
+    }
+
+    /**
+     * @param lockProvider lock provider used by the owner of a lock name
+     * @param membership registry of the nodes
+     * @param nodeId unique id of this node
+     * @param memberLease how long a node is considered alive, heartbeats are sent every third of it
+     */
+    public ConsistentHashLockProvider(@NonNull LockProvider lockProvider, @NonNull ClusterMembership membership,
+                                      @NonNull String nodeId, @NonNull Duration memberLease) {
+        this.lockProvider = requireNonNull(lockProvider);
+        this.membership = requireNonNull(membership);
+        this.nodeId = requireNonNull(nodeId);
+        this.memberLease = requireNonNull(memberLease);
+        this.heartbeatMillis = memberLease.toMillis() / 3;
+        if (heartbeatMillis <= 0) {
+            throw new IllegalArgumentException("Member lease is too short: " + memberLease);
+        }
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dcs-cluster-membership");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @NonNull
+    public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        if (!started) {
+            start();
+        }
+        Members current = members;
+        String owner = current.ring.ownerOf(lockConfiguration.getName());
+        if (owner == null || owner.equals(nodeId)) {
+            return lockProvider.lock(lockConfiguration);
+        }
+        Instant ownerAliveUntil = current.aliveUntil.get(owner);
+        if (ownerAliveUntil == null || !ownerAliveUntil.isAfter(ClockProvider.now())) {
+            logger.debug("Owner {} of lock '{}' is not alive, trying to lock it", owner, lockConfiguration.getName());
+            return lockProvider.lock(lockConfiguration);
+        }
+        return Optional.empty();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Registers synchronously on the first lock request, so the ring is known right away. */
+    private void start() {
+        mutex.lock();
+        try {
+            if (!started) {
+                started = true;
+                heartbeat();
+                heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    void heartbeat() {
+        Instant now = ClockProvider.now();
+        boolean registered = false;
+        try {
+            membership.heartbeat(nodeId, memberLease);
+            registered = true;
+        } catch (RuntimeException e) {
+            logger.warn("Can not send heartbeat of node {}", nodeId, e);
+        }
+        try {
+            Map<String, Instant> aliveUntil = new HashMap<>(membership.liveMembers());
+            if (registered) {
+                aliveUntil.putIfAbsent(nodeId, now.plus(memberLease));
+            }
+            Members current = members;
+            ConsistentHashRing ring = aliveUntil.keySet().equals(current.aliveUntil.keySet())
+                    ? current.ring
+                    : ConsistentHashRing.of(aliveUntil.keySet());
+            if (ring != current.ring) {
+                logger.info("Cluster members changed to {}", aliveUntil.keySet());
+            }
+            members = new Members(ring, aliveUntil);
+        } catch (RuntimeException e) {
+            // keep the current ring, owners which are not refreshed count as dead once their registration expires
+            logger.warn("Can not read cluster members", e);
+        }
+    }
+
+    /** Stops the heartbeats and leaves the cluster, so the lock names of this node move immediately. */
+    @Override
+    public void close() {
+        mutex.lock();
+        try {
+            started = true;
+            heartbeats.shutdownNow();
+            try {
+                membership.leave(nodeId);
+            } catch (RuntimeException e) {
+                logger.warn("Can not leave the cluster, node {} drops out once its registration expires", nodeId, e);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private static String defaultNodeId() {
+        String hostname = Utils.getHostname();
+        if (hostname.length() > 40) {
+            hostname = hostname.substring(0, 40);
+        }
+        return hostname + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static final class Members {
+        private final ConsistentHashRing ring;
+        private final Map<String, Instant> aliveUntil;
+
+        private Members(ConsistentHashRing ring, Map<String, Instant> aliveUntil) {
+            this.ring = ring;
+            this.aliveUntil = aliveUntil;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable consistent hash ring mapping lock names to node ids. Every node is
+ * placed on the ring many times, so lock names spread evenly and adding or
+ * removing a node only moves the lock names it owned. All nodes compute the same
+ * ring for the same members.
+ *
+ * @author typhoon
+ **/
+final class ConsistentHashRing {
+    static final int VIRTUAL_NODES = 160;
+
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(Collections.emptyNavigableMap());
+
+    private final NavigableMap<Long, String> ring;
+
+    private ConsistentHashRing(NavigableMap<Long, String> ring) {
+        this.ring = ring;
+    }
+
+    static ConsistentHashRing empty() {
+        return EMPTY;
+    }
+
+    static ConsistentHashRing of(Collection<String> nodeIds) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                // on a collision the smaller id wins, so the ring does not depend on iteration order
+                ring.merge(hash(nodeId + "#" + i), nodeId, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        return new ConsistentHashRing(ring);
+    }
+
+    /**
+     * @return id of the node owning the lock name, null if the ring is empty
+     */
+    String ownerOf(String lockName) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(lockName));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /** 64 bit FNV-1a followed by the murmur3 finalizer to spread similar names. */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
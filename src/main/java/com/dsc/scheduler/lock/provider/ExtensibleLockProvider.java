@@ -13,7 +13,30 @@
  */
 package com.dsc.scheduler.lock.provider;
 
+import com.dsc.scheduler.lock.LockConfiguration;
 import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
 
-/** Marker interface for a LockProvider that supports lock extension. */
-public interface ExtensibleLockProvider extends LockProvider {}
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Interface for a LockProvider that supports lock extension and batch lock acquisition. */
+public interface ExtensibleLockProvider extends LockProvider {
+
+    /**
+     * Tries to acquire all given locks at once, e.g. for tasks firing on the same
+     * cron tick. Providers that can not acquire locks in a batch lock them one by one.
+     *
+     * @param lockConfigurations configs
+     * @return acquired locks keyed by lock name, locks held by someone else are missing.
+     *         The locks have to be released by the callee.
+     */
+    default Map<String, SimpleLock> lockAll(Collection<LockConfiguration> lockConfigurations) {
+        Map<String, SimpleLock> locks = new LinkedHashMap<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            lock(lockConfiguration).ifPresent(lock -> locks.put(lockConfiguration.getName(), lock));
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers until when other nodes hold a lock, as learned from a failed lock
+ * attempt, so the lock provider can refuse further attempts locally instead of
+ * asking the lock store again. The remaining time is shortened by a clock skew
+ * margin and never exceeds lockAtMostFor of the failed attempt, so a wrong
+ * answer of the store can not keep the lock away from this node for long.
+ *
+ * <p>
+ * The provider reports the locks this node acquires and releases. Nothing is
+ * remembered while this node holds the lock itself, e.g. when overlapping runs of
+ * an asynchronous or reactive job fail against the lock of the running one, or
+ * when this node released the lock after the failed attempt started. Otherwise
+ * the holder would skip its own next runs after an early unlock.
+ *
+ * <p>
+ * Other nodes attempt a lock released early by its holder only once the
+ * remembered time passes, the holder keeps running it meanwhile. Combine with
+ * short renewed leases (see {@link com.dsc.scheduler.lock.LockLeaseRenewer}) to
+ * keep that time short.
+ *
+ * @author typhoon
+ **/
+public final class KnownHeldLocks {
+    public static final Duration DEFAULT_CLOCK_SKEW_MARGIN = Duration.ofSeconds(1);
+
+    private final Duration clockSkewMargin;
+    private final Map<String, Instant> heldUntil = new ConcurrentHashMap<>();
+    /** Number of locks held by this node, by lock name. */
+    private final Map<String, Integer> ownLocks = new ConcurrentHashMap<>();
+    /** Last release of a lock held by this node, by lock name. */
+    private final Map<String, Instant> releasedAt = new ConcurrentHashMap<>();
+
+    public KnownHeldLocks() {
+        this(DEFAULT_CLOCK_SKEW_MARGIN);
+    }
+
+    public KnownHeldLocks(Duration clockSkewMargin) {
+        this.clockSkewMargin = clockSkewMargin;
+    }
+
+    /**
+     * @param lockName lock name
+     * @return true if the lock is known to be held by someone else right now
+     */
+    public boolean isHeld(String lockName) {
+        Instant until = heldUntil.get(lockName);
+        if (until == null) {
+            return false;
+        }
+        if (until.isAfter(ClockProvider.now())) {
+            return true;
+        }
+        heldUntil.remove(lockName, until);
+        return false;
+    }
+
+    /**
+     * Records that the lock attempt failed because the lock is held for the given time.
+     *
+     * @param lockConfiguration configuration of the failed attempt
+     * @param remaining how much longer the lock is held, as reported by the lock store
+     */
+    public void held(LockConfiguration lockConfiguration, Duration remaining) {
+        String lockName = lockConfiguration.getName();
+        if (ownLocks.containsKey(lockName)) {
+            // failed against the lock of this node
+            return;
+        }
+        Instant released = releasedAt.get(lockName);
+        if (released != null && !released.isBefore(lockConfiguration.getCreatedAt())) {
+            // the remaining time may be the one of the lock released meanwhile
+            return;
+        }
+        if (remaining.compareTo(lockConfiguration.getLockAtMostFor()) > 0) {
+            remaining = lockConfiguration.getLockAtMostFor();
+        }
+        Duration skipFor = remaining.minus(clockSkewMargin);
+        if (!skipFor.isNegative() && !skipFor.isZero()) {
+            heldUntil.put(lockName, ClockProvider.now().plus(skipFor));
+        }
+    }
+
+    /**
+     * Records that this node acquired the lock.
+     *
+     * @param lockName lock name
+     */
+    public void acquired(String lockName) {
+        ownLocks.merge(lockName, 1, Integer::sum);
+        forget(lockName);
+    }
+
+    /**
+     * Records that this node released the lock, or lost it because it could not be
+     * extended.
+     *
+     * @param lockName lock name
+     */
+    public void released(String lockName) {
+        ownLocks.computeIfPresent(lockName, (name, count) -> count > 1 ? count - 1 : null);
+        releasedAt.put(lockName, ClockProvider.now());
+        forget(lockName);
+    }
+
+    /**
+     * Forgets until when the lock is held, the next attempt asks the lock store.
+     *
+     * @param lockName lock name
+     */
+    public void forget(String lockName) {
+        heldUntil.remove(lockName);
+    }
+
+    public void clear() {
+        heldUntil.clear();
+    }
+}
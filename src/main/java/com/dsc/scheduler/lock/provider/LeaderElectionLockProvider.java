@@ -0,0 +1,219 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.support.NonNull;
+import com.dsc.scheduler.support.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runs all jobs on a single elected node. The nodes compete for one leader lock
+ * of the wrapped {@link LockProvider}, the node holding it is the leader and keeps
+ * extending the lock in the background every third of the lease. Job locks are
+ * then granted locally: the leader gets a lock for every job which it does not run
+ * already, without calling the lock store, all other nodes get none. The lock store
+ * only sees one heartbeat per node and lease period instead of one call per node and
+ * job execution.
+ *
+ * <p>
+ * The leader considers itself the leader only until a heartbeat period before
+ * the lease expires in the lock store, so a leader which can not reach the store
+ * stops running jobs before another node can take over. Leadership is handed over
+ * on a lease boundary, lockAtLeastFor of the jobs is not kept, neither locally nor
+ * across a handover. A granted lock can not be extended once the leadership is lost.
+ * Requires a lock provider supporting lock extension.
+ *
+ * @author typhoon
+ **/
+public class LeaderElectionLockProvider implements LockProvider, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElectionLockProvider.class);
+
+    public static final String DEFAULT_LEADER_LOCK_NAME = "dcs-scheduler-leader";
+
+    private final LockProvider lockProvider;
+    private final String leaderLockName;
+    private final Duration lease;
+    private final long heartbeatMillis;
+    private final ScheduledExecutorService heartbeats;
+    private final Set<String> grantedLocks = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock mutex = new ReentrantLock();
+
+    @Nullable
+    private SimpleLock leaderLock;
+    private volatile Instant leaderUntil = Instant.EPOCH;
+    private volatile boolean started;
+
+    public LeaderElectionLockProvider(@NonNull LockProvider lockProvider, @NonNull Duration lease) {
+        this(lockProvider, DEFAULT_LEADER_LOCK_NAME, lease);
+    }
+
+    public LeaderElectionLockProvider(@NonNull LockProvider lockProvider, @NonNull String leaderLockName,
+                                      @NonNull Duration lease) {
+        this.lockProvider = requireNonNull(lockProvider);
+        this.leaderLockName = requireNonNull(leaderLockName);
+        this.lease = requireNonNull(lease);
+        this.heartbeatMillis = lease.toMillis() / 3;
+        if (heartbeatMillis <= 0) {
+            throw new IllegalArgumentException("Leader lease is too short: " + lease);
+        }
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dcs-leader-election");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @NonNull
+    public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        if (!started) {
+            start();
+        }
+        if (isLeader() && grantedLocks.add(lockConfiguration.getName())) {
+            return Optional.of(new LeaderGrantedLock(lockConfiguration.getName()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return true while this node holds a valid leader lease
+     */
+    public boolean isLeader() {
+        return leaderUntil.isAfter(ClockProvider.now());
+    }
+
+    /** Elects synchronously on the first lock request, so jobs can run right away. */
+    private void start() {
+        mutex.lock();
+        try {
+            if (!started) {
+                started = true;
+                heartbeat();
+                heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    void heartbeat() {
+        mutex.lock();
+        try {
+            Instant now = ClockProvider.now();
+            try {
+                if (leaderLock == null) {
+                    Optional<SimpleLock> acquired = lockProvider.lock(new LockConfiguration(now, leaderLockName, lease, Duration.ZERO));
+                    if (acquired.isPresent()) {
+                        leaderLock = acquired.get();
+                        leaderUntil = validUntil(now);
+                        logger.info("Elected leader using lock '{}'", leaderLockName);
+                    }
+                } else {
+                    Optional<SimpleLock> extended = leaderLock.extend(lease, Duration.ZERO);
+                    if (extended.isPresent()) {
+                        leaderLock = extended.get();
+                        leaderUntil = validUntil(now);
+                    } else {
+                        stepDown("leader lock has expired");
+                    }
+                }
+            } catch (UnsupportedOperationException e) {
+                stepDown("lock provider does not support lock extension");
+            } catch (RuntimeException e) {
+                // keep the current lease until it runs out locally, try again on the next heartbeat
+                logger.warn("Leader election heartbeat failed", e);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private Instant validUntil(Instant renewedAt) {
+        return renewedAt.plus(lease).minusMillis(heartbeatMillis);
+    }
+
+    private void stepDown(String reason) {
+        if (leaderLock != null) {
+            logger.warn("Lost leadership of lock '{}', {}", leaderLockName, reason);
+        }
+        leaderLock = null;
+        leaderUntil = Instant.EPOCH;
+    }
+
+    /** Stops the heartbeats and releases the leadership, so another node can take over immediately. */
+    @Override
+    public void close() {
+        mutex.lock();
+        try {
+            started = true;
+            heartbeats.shutdownNow();
+            if (leaderLock != null && isLeader()) {
+                try {
+                    leaderLock.unlock();
+                } catch (RuntimeException e) {
+                    logger.warn("Can not release leader lock '{}'", leaderLockName, e);
+                }
+            }
+            leaderLock = null;
+            leaderUntil = Instant.EPOCH;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /** Lock granted to the leader without a lock store round trip, held until unlocked. */
+    private final class LeaderGrantedLock implements SimpleLock {
+        private final String name;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private LeaderGrantedLock(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void unlock() {
+            // the leader lock is kept, only the job is released
+            if (released.compareAndSet(false, true)) {
+                grantedLocks.remove(name);
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            if (released.get() || !isLeader()) {
+                // another node may already run the job
+                return Optional.empty();
+            }
+            return Optional.of(this);
+        }
+    }
+}
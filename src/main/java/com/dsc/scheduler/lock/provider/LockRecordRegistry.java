@@ -13,35 +13,48 @@
  */
 package com.dsc.scheduler.lock.provider;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Some LockProviders have to decide if a new record has to be created or an old
  * one updated. This class helps them keep track of existing lock records, so
  * they know if a lock record exists.
+ *
+ * <p>
+ * Provisioned records are pinned, they stay known even when the lock name is
+ * garbage collected.
  */
 class LockRecordRegistry {
     private final Set<String> lockRecords = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final Set<String> pinnedLockRecords = ConcurrentHashMap.newKeySet();
 
     public void addLockRecord(String lockName) {
         lockRecords.add(lockName);
     }
 
+    void pinLockRecords(Collection<String> lockNames) {
+        pinnedLockRecords.addAll(lockNames);
+    }
+
     void removeLockRecord(String lockName) {
         lockRecords.remove(lockName);
+        pinnedLockRecords.remove(lockName);
     }
 
     public boolean lockRecordRecentlyCreated(String lockName) {
-        return lockRecords.contains(lockName);
+        return pinnedLockRecords.contains(lockName) || lockRecords.contains(lockName);
     }
 
     int getSize() {
-        return lockRecords.size();
+        return lockRecords.size() + pinnedLockRecords.size();
     }
 
     public void clear() {
         lockRecords.clear();
+        pinnedLockRecords.clear();
     }
 }
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.LockProvider;
+
+import java.util.Collection;
+
+/**
+ * Lock provider which can create the lock records of all known lock names up
+ * front, so that locking never has to create them on the hot path.
+ *
+ * @author typhoon
+ **/
+public interface ProvisioningLockProvider extends LockProvider {
+
+    /**
+     * Creates unlocked records for the lock names which do not have one yet.
+     * Existing records are left untouched.
+     *
+     * @param lockNames names of all the locks that will be used
+     */
+    void provision(Collection<String> lockNames);
+}
@@ -14,8 +14,15 @@
 package com.dsc.scheduler.lock.provider;
 
 
+import com.dsc.scheduler.lock.ClockProvider;
 import com.dsc.scheduler.lock.LockConfiguration;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
 public interface StorageAccessor {
     /**
      * Inserts a record, if it does not already exists. If it exists, returns false.
@@ -26,6 +33,20 @@ public interface StorageAccessor {
      */
     boolean insertRecord(LockConfiguration lockConfiguration);
 
+    /**
+     * Inserts unlocked records for the lock names which do not have one yet,
+     * see {@link ProvisioningLockProvider}. Storages that can not batch the inserts
+     * insert the records one by one.
+     *
+     * @param lockNames
+     *            lock names
+     */
+    default void insertMissingRecords(Collection<String> lockNames) {
+        for (String lockName : lockNames) {
+            insertRecord(new LockConfiguration(ClockProvider.now(), lockName, Duration.ZERO, Duration.ZERO));
+        }
+    }
+
     /**
      * Tries to update the lock record. If there is already a valid lock record (the
      * lock is held by someone else) update should not do anything and this method
@@ -37,6 +58,47 @@ public interface StorageAccessor {
      */
     boolean updateRecord(LockConfiguration lockConfiguration);
 
+    /**
+     * @return true if {@link #updateRecord(LockConfiguration)} also creates a missing
+     *         record, then the lock is acquired by the update alone and
+     *         {@link #insertRecord(LockConfiguration)} is not called before it
+     */
+    default boolean updateCreatesRecord() {
+        return false;
+    }
+
+    /**
+     * Tries to update all given lock records at once, see
+     * {@link #updateRecord(LockConfiguration)}. Storages that can not batch the
+     * updates update the records one by one.
+     *
+     * @param lockConfigurations
+     *            LockConfigurations
+     * @return names of the updated lock records
+     */
+    default Set<String> updateRecords(Collection<LockConfiguration> lockConfigurations) {
+        Set<String> updated = new HashSet<>();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            if (updateRecord(lockConfiguration)) {
+                updated.add(lockConfiguration.getName());
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Reads how much longer the lock record is held, called after
+     * {@link #updateRecord(LockConfiguration)} did not get the lock. Storages that
+     * can not tell return empty and the lock is attempted again on the next call.
+     *
+     * @param lockConfiguration
+     *            LockConfiguration of the failed attempt
+     * @return remaining time the lock is held by someone else
+     */
+    default Optional<Duration> getRemainingLockTime(LockConfiguration lockConfiguration) {
+        return Optional.empty();
+    }
+
     void unlock(LockConfiguration lockConfiguration);
 
     default boolean extend(LockConfiguration lockConfiguration) {
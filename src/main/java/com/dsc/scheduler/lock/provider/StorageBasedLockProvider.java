@@ -17,7 +17,13 @@ import com.dsc.scheduler.lock.AbstractSimpleLock;
 import com.dsc.scheduler.lock.LockConfiguration;
 import com.dsc.scheduler.lock.SimpleLock;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Distributed lock using abstract storage
@@ -36,36 +42,115 @@ import java.util.Optional;
  * the update failed (0 updated documents) somebody else holds the lock
  * <li>When unlocking, lock_until is set to now.
  * </ol>
+ *
+ * <p>
+ * Storages which can create the record within the update (see
+ * {@link StorageAccessor#updateCreatesRecord()}) skip the insert and acquire the
+ * lock in a single statement.
+ *
+ * <p>
+ * When the update fails, the remaining lock time is read from the storage and
+ * kept in {@link KnownHeldLocks}, further attempts fail locally until then.
+ *
+ * <p>
+ * {@link #lockAll(Collection)} follows the same steps, but hands all the updates
+ * to the storage at once so that it can execute them in a single round trip.
+ *
+ * <p>
+ * {@link #provision(Collection)} creates the records of all known lock names at
+ * once and pins them in the registry, so locking them is a single update.
  */
-public class StorageBasedLockProvider implements ExtensibleLockProvider {
+public class StorageBasedLockProvider implements ExtensibleLockProvider, ProvisioningLockProvider {
     private final StorageAccessor storageAccessor;
     private final LockRecordRegistry lockRecordRegistry = new LockRecordRegistry();
+    private final KnownHeldLocks knownHeldLocks = new KnownHeldLocks();
 
     protected StorageBasedLockProvider(StorageAccessor storageAccessor) {
         this.storageAccessor = storageAccessor;
     }
 
-    /** Clears cache of existing lock records. */
+    /** Clears cache of existing lock records and of locks known to be held. */
     public void clearCache() {
         lockRecordRegistry.clear();
+        knownHeldLocks.clear();
     }
 
     @Override
     public Optional<SimpleLock> lock(LockConfiguration lockConfiguration) {
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            return Optional.empty();
+        }
         boolean lockObtained = doLock(lockConfiguration);
         if (lockObtained) {
-            return Optional.of(new StorageLock(lockConfiguration, storageAccessor));
+            return Optional.of(acquired(lockConfiguration));
         } else {
+            storageAccessor.getRemainingLockTime(lockConfiguration)
+                    .ifPresent(remaining -> knownHeldLocks.held(lockConfiguration, remaining));
             return Optional.empty();
         }
     }
 
+    @Override
+    public void provision(Collection<String> lockNames) {
+        storageAccessor.insertMissingRecords(lockNames);
+        lockRecordRegistry.pinLockRecords(lockNames);
+    }
+
+    @Override
+    public Map<String, SimpleLock> lockAll(Collection<LockConfiguration> lockConfigurations) {
+        Map<String, SimpleLock> locks = new LinkedHashMap<>();
+        List<LockConfiguration> toUpdate = new ArrayList<>(lockConfigurations.size());
+        List<String> registeredNames = new ArrayList<>();
+        boolean updateCreatesRecord = storageAccessor.updateCreatesRecord();
+        for (LockConfiguration lockConfiguration : lockConfigurations) {
+            String name = lockConfiguration.getName();
+            if (knownHeldLocks.isHeld(name)) {
+                continue;
+            }
+            if (!updateCreatesRecord && !lockRecordRegistry.lockRecordRecentlyCreated(name)) {
+                registeredNames.add(name);
+                lockRecordRegistry.addLockRecord(name);
+                if (storageAccessor.insertRecord(lockConfiguration)) {
+                    locks.put(name, acquired(lockConfiguration));
+                    continue;
+                }
+            }
+            toUpdate.add(lockConfiguration);
+        }
+        if (toUpdate.isEmpty()) {
+            return locks;
+        }
+
+        try {
+            Set<String> updated = storageAccessor.updateRecords(toUpdate);
+            for (LockConfiguration lockConfiguration : toUpdate) {
+                if (updated.contains(lockConfiguration.getName())) {
+                    locks.put(lockConfiguration.getName(), acquired(lockConfiguration));
+                }
+            }
+            return locks;
+        } catch (Exception e) {
+            // see doLock
+            registeredNames.forEach(lockRecordRegistry::removeLockRecord);
+            throw e;
+        }
+    }
+
+    private SimpleLock acquired(LockConfiguration lockConfiguration) {
+        knownHeldLocks.acquired(lockConfiguration.getName());
+        return new StorageLock(lockConfiguration, storageAccessor, knownHeldLocks);
+    }
+
     /**
      * Sets lockUntil according to LockConfiguration if current lockUntil &lt;= now
      * @param lockConfiguration lock config
      * @return boolean
      */
     protected boolean doLock(LockConfiguration lockConfiguration) {
+        if (storageAccessor.updateCreatesRecord()) {
+            // one statement creates the record or takes the lock over
+            return storageAccessor.updateRecord(lockConfiguration);
+        }
         String name = lockConfiguration.getName();
 
         boolean tryToCreateLockRecord = !lockRecordRegistry.lockRecordRecentlyCreated(name);
@@ -103,22 +188,29 @@ public class StorageBasedLockProvider implements ExtensibleLockProvider {
 
     private static class StorageLock extends AbstractSimpleLock {
         private final StorageAccessor storageAccessor;
+        private final KnownHeldLocks knownHeldLocks;
 
-        StorageLock(LockConfiguration lockConfiguration, StorageAccessor storageAccessor) {
+        StorageLock(LockConfiguration lockConfiguration, StorageAccessor storageAccessor, KnownHeldLocks knownHeldLocks) {
             super(lockConfiguration);
             this.storageAccessor = storageAccessor;
+            this.knownHeldLocks = knownHeldLocks;
         }
 
         @Override
         public void doUnlock() {
-            storageAccessor.unlock(lockConfiguration);
+            try {
+                storageAccessor.unlock(lockConfiguration);
+            } finally {
+                knownHeldLocks.released(lockConfiguration.getName());
+            }
         }
 
         @Override
         public Optional<SimpleLock> doExtend(LockConfiguration newConfig) {
             if (storageAccessor.extend(newConfig)) {
-                return Optional.of(new StorageLock(newConfig, storageAccessor));
+                return Optional.of(new StorageLock(newConfig, storageAccessor, knownHeldLocks));
             } else {
+                knownHeldLocks.released(lockConfiguration.getName());
                 return Optional.empty();
             }
         }
@@ -8,14 +8,14 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 public enum DatabaseProduct {
-//    POSTGRES_SQL("PostgreSQL"::equalsIgnoreCase, PostgresSqlServerTimeStatementsSource::new),
-//    SQL_SERVER("Microsoft SQL Server"::equalsIgnoreCase, MsSqlServerTimeStatementsSource::new),
-//    ORACLE("Oracle"::equalsIgnoreCase, OracleServerTimeStatementsSource::new),
+    POSTGRES_SQL("PostgreSQL"::equalsIgnoreCase, PostgresSqlServerTimeStatementsSource::new),
+    SQL_SERVER("Microsoft SQL Server"::equalsIgnoreCase, MsSqlServerTimeStatementsSource::new),
+    ORACLE("Oracle"::equalsIgnoreCase, OracleServerTimeStatementsSource::new),
     MY_SQL("MySQL"::equalsIgnoreCase, MySqlServerTimeStatementsSource::new),
-//    MARIA_DB("MariaDB"::equalsIgnoreCase, MySqlServerTimeStatementsSource::new),
-//    HQL("HSQL Database Engine"::equalsIgnoreCase, HsqlServerTimeStatementsSource::new),
-//    H2("H2"::equalsIgnoreCase, H2ServerTimeStatementsSource::new),
-//    DB2(s -> s.substring(0, 3).equalsIgnoreCase("DB2"), Db2ServerTimeStatementsSource::new),
+    MARIA_DB("MariaDB"::equalsIgnoreCase, MySqlServerTimeStatementsSource::new),
+    HQL("HSQL Database Engine"::equalsIgnoreCase, HsqlServerTimeStatementsSource::new),
+    H2("H2"::equalsIgnoreCase, H2ServerTimeStatementsSource::new),
+    DB2(s -> s.regionMatches(true, 0, "DB2", 0, 3), Db2ServerTimeStatementsSource::new),
     UNKNOWN(s -> false, configuration -> {
         throw new UnsupportedOperationException("DB time is not supported for unknown database product");
     });
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * H2 dialect using the database time. The lock record is inserted or taken over
+ * in one MERGE statement, which updates the row only if the lock has expired.
+ */
+class H2ServerTimeStatementsSource extends SqlStatementsSource {
+    private static final String now = "CURRENT_TIMESTAMP(3)";
+    private static final String lockAtMostFor = "DATEADD(MICROSECOND, :lockAtMostForMicros, " + now + ")";
+
+    H2ServerTimeStatementsSource(JdbcTemplateLockProvider.Configuration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    String getInsertStatement() {
+        return merge(false);
+    }
+
+    @Override
+    boolean isInsertIfAbsent() {
+        return true;
+    }
+
+    @Override
+    String getUpsertStatement() {
+        return merge(true);
+    }
+
+    private String merge(boolean takeOverExpired) {
+        return "MERGE INTO " + tableName() + " t USING (VALUES(CAST(:name AS VARCHAR(255)))) s(" + name() + ") ON (t."
+                + name() + " = s." + name() + ")"
+                + (takeOverExpired ? " WHEN MATCHED AND t." + lockUntil() + " <= " + now + " THEN UPDATE SET "
+                        + lockUntil() + " = " + lockAtMostFor + ", " + lockedAt() + " = " + now + ", " + lockedBy()
+                        + " = :lockedBy" : "")
+                + " WHEN NOT MATCHED THEN INSERT (" + name() + ", " + lockUntil() + ", " + lockedAt() + ", "
+                + lockedBy() + ") VALUES (s." + name() + ", " + lockAtMostFor + ", " + now + ", :lockedBy)";
+    }
+
+    @Override
+    public String getUpdateStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + ", " + lockedAt() + " = " + now
+                + ", " + lockedBy() + " = :lockedBy WHERE " + name() + " = :name AND " + lockUntil() + " <= " + now;
+    }
+
+    @Override
+    public String getUnlockStatement() {
+        String lockAtLeastFor = "DATEADD(MICROSECOND, :lockAtLeastForMicros, " + lockedAt() + ")";
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = CASE WHEN " + lockAtLeastFor + " > " + now
+                + " THEN " + lockAtLeastFor + " ELSE " + now + " END WHERE " + name() + " = :name AND " + lockedBy()
+                + " = :lockedBy";
+    }
+
+    @Override
+    public String getExtendStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + " WHERE " + name()
+                + " = :name AND " + lockedBy() + " = :lockedBy AND " + lockUntil() + " > " + now;
+    }
+
+    @Override
+    String currentDbTime() {
+        return now;
+    }
+
+    /** CURRENT_TIMESTAMP carries the time zone of the session. */
+    @Override
+    Instant serverTime(ResultSet rs) throws SQLException {
+        return rs.getObject(1, OffsetDateTime.class).toInstant();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.support.NonNull;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the cluster members in the lock table, next to the locks. A member is a
+ * row named {@value #MEMBER_PREFIX}node id, with lock_until set to the end of its
+ * registration. Uses the application time like the default lock statements.
+ *
+ * <p>
+ * A node which crashed leaves its row behind and registers with a new id after a
+ * restart, so every heartbeat deletes the member rows which expired more than
+ * {@value #PURGE_AFTER_LEASES} leases ago. A node whose row got deleted while it
+ * was only paused registers again with its next heartbeat.
+ *
+ * @author typhoon
+ **/
+public class JdbcTemplateClusterMembership implements ClusterMembership {
+    static final String MEMBER_PREFIX = "dcs-member:";
+    static final int PURGE_AFTER_LEASES = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplateLockProvider.Configuration configuration;
+
+    public JdbcTemplateClusterMembership(@NonNull JdbcTemplateLockProvider.Configuration configuration) {
+        this.configuration = requireNonNull(configuration, "configuration can not be null");
+        this.jdbcTemplate = configuration.getJdbcTemplate();
+    }
+
+    @Override
+    public void heartbeat(@NonNull String nodeId, @NonNull Duration ttl) {
+        Instant now = ClockProvider.now();
+        Calendar calendar = calendar();
+        Timestamp lockUntil = Timestamp.from(now.plus(ttl));
+        Timestamp lockedAt = Timestamp.from(now);
+        String name = MEMBER_PREFIX + nodeId;
+        String update = "UPDATE " + tableName() + " SET " + lockUntil() + " = ?, " + lockedAt() + " = ? WHERE "
+                + name() + " = ?";
+        if (!updated(update, lockUntil, lockedAt, name, calendar)) {
+            insert(update, lockUntil, lockedAt, name, calendar);
+        }
+        purgeExpired(now.minus(ttl.multipliedBy(PURGE_AFTER_LEASES)), calendar);
+    }
+
+    private void insert(String update, Timestamp lockUntil, Timestamp lockedAt, String name, Calendar calendar) {
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", "
+                            + lockedBy() + ") VALUES(?, ?, ?, ?)",
+                    ps -> {
+                        ps.setString(1, name);
+                        ps.setTimestamp(2, lockUntil, calendar);
+                        ps.setTimestamp(3, lockedAt, calendar);
+                        ps.setString(4, configuration.getLockedByValue());
+                    });
+        } catch (DuplicateKeyException e) {
+            // registered by a parallel heartbeat of the same node
+            updated(update, lockUntil, lockedAt, name, calendar);
+        }
+    }
+
+    private void purgeExpired(Instant expiredBefore, Calendar calendar) {
+        jdbcTemplate.update(
+                "DELETE FROM " + tableName() + " WHERE " + name() + " LIKE ? AND " + lockUntil() + " < ?",
+                ps -> {
+                    ps.setString(1, MEMBER_PREFIX + "%");
+                    ps.setTimestamp(2, Timestamp.from(expiredBefore), calendar);
+                });
+    }
+
+    private boolean updated(String sql, Timestamp lockUntil, Timestamp lockedAt, String name, Calendar calendar) {
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setTimestamp(1, lockUntil, calendar);
+            ps.setTimestamp(2, lockedAt, calendar);
+            ps.setString(3, name);
+        }) > 0;
+    }
+
+    @Override
+    @NonNull
+    public Map<String, Instant> liveMembers() {
+        Calendar calendar = calendar();
+        Map<String, Instant> members = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT " + name() + ", " + lockUntil() + " FROM " + tableName() + " WHERE " + name() + " LIKE ? AND "
+                        + lockUntil() + " > ?",
+                ps -> {
+                    ps.setString(1, MEMBER_PREFIX + "%");
+                    ps.setTimestamp(2, Timestamp.from(ClockProvider.now()), calendar);
+                },
+                rs -> {
+                    members.put(rs.getString(1).substring(MEMBER_PREFIX.length()),
+                            rs.getTimestamp(2, calendar).toInstant());
+                });
+        return members;
+    }
+
+    @Override
+    public void leave(@NonNull String nodeId) {
+        jdbcTemplate.update("DELETE FROM " + tableName() + " WHERE " + name() + " = ?", MEMBER_PREFIX + nodeId);
+    }
+
+    private Calendar calendar() {
+        TimeZone timeZone = configuration.getTimeZone();
+        return timeZone != null ? Calendar.getInstance(timeZone) : Calendar.getInstance();
+    }
+
+    private String name() {
+        return configuration.getColumnNames().getName();
+    }
+
+    private String lockUntil() {
+        return configuration.getColumnNames().getLockUntil();
+    }
+
+    private String lockedAt() {
+        return configuration.getColumnNames().getLockedAt();
+    }
+
+    private String lockedBy() {
+        return configuration.getColumnNames().getLockedBy();
+    }
+
+    private String tableName() {
+        return configuration.getTableName();
+    }
+}
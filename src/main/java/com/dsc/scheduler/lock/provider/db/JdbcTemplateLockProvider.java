@@ -78,8 +78,29 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                 .build());
     }
 
+    private final JdbcTemplateStorageAccessor storageAccessor;
+
     public JdbcTemplateLockProvider(@NonNull Configuration configuration) {
-        super(new JdbcTemplateStorageAccessor(configuration));
+        this(new JdbcTemplateStorageAccessor(configuration));
+    }
+
+    private JdbcTemplateLockProvider(JdbcTemplateStorageAccessor storageAccessor) {
+        super(storageAccessor);
+        this.storageAccessor = storageAccessor;
+    }
+
+    /**
+     * Reads the dialect and compiles the lock statements now instead of on the first
+     * lock attempt. With {@link Configuration.Builder#usingMySqlUpsert()} it checks
+     * that the connections report affected rows, by locking a record named
+     * dcs-upsert-probe twice.
+     *
+     * @throws IllegalStateException if the connections report found rows, the lock
+     *         attempts fail then
+     * @throws org.springframework.dao.DataAccessException if the database can not be reached
+     */
+    public void checkStatements() {
+        storageAccessor.checkStatements();
     }
 
     public static final class Configuration {
@@ -93,6 +114,8 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
         private final boolean useDbTime;
         private final Integer isolationLevel;
         private final boolean throwUnexpectedException;
+        private final boolean useAutoCommit;
+        private final boolean useMySqlUpsert;
 
         Configuration(
                 @NonNull JdbcTemplate jdbcTemplate,
@@ -104,7 +127,9 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                 @NonNull String lockedByValue,
                 boolean useDbTime,
                 @Nullable Integer isolationLevel,
-                boolean throwUnexpectedException) {
+                boolean throwUnexpectedException,
+                boolean useAutoCommit,
+                boolean useMySqlUpsert) {
 
             this.jdbcTemplate = requireNonNull(jdbcTemplate, "jdbcTemplate can not be null");
             this.databaseProduct = databaseProduct;
@@ -119,6 +144,11 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             }
             this.useDbTime = useDbTime;
             this.throwUnexpectedException = throwUnexpectedException;
+            if (useAutoCommit && (transactionManager != null || isolationLevel != null)) {
+                throw new IllegalArgumentException("Can not set both useAutoCommit and transactionManager or isolationLevel");
+            }
+            this.useAutoCommit = useAutoCommit;
+            this.useMySqlUpsert = useMySqlUpsert;
         }
 
         public JdbcTemplate getJdbcTemplate() {
@@ -161,6 +191,14 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             return throwUnexpectedException;
         }
 
+        public boolean getUseAutoCommit() {
+            return useAutoCommit;
+        }
+
+        public boolean getUseMySqlUpsert() {
+            return useMySqlUpsert;
+        }
+
         public static Builder builder() {
             return new Builder();
         }
@@ -177,6 +215,8 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
             private boolean useDbTime = false;
             private Integer isolationLevel;
             private boolean throwUnexpectedException = false;
+            private boolean useAutoCommit = false;
+            private boolean useMySqlUpsert = false;
 
             public Builder withJdbcTemplate(@NonNull JdbcTemplate jdbcTemplate) {
                 this.jdbcTemplate = jdbcTemplate;
@@ -251,6 +291,33 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                 return this;
             }
 
+            /**
+             * Executes every lock statement on its own auto-commit connection taken
+             * straight from the DataSource, instead of in a new Spring transaction.
+             * A transaction of the task is neither suspended nor joined, and the
+             * lock statements do not pay for BEGIN/COMMIT. Lock records are still
+             * provisioned in a single local transaction.
+             * @return builder
+             */
+            public Builder usingAutoCommit() {
+                this.useAutoCommit = true;
+                return this;
+            }
+
+            /**
+             * Acquires MySQL locks with a single INSERT ... ON DUPLICATE KEY UPDATE
+             * when {@link #usingDbTime()} is set. The connections must report
+             * affected rows instead of found rows (useAffectedRows=true),
+             * otherwise a lock held by another node looks acquired. This is checked
+             * when the statements are compiled, see
+             * {@link JdbcTemplateLockProvider#checkStatements()}.
+             * @return builder
+             */
+            public Builder usingMySqlUpsert() {
+                this.useMySqlUpsert = true;
+                return this;
+            }
+
             public Configuration build() {
                 return new Configuration(
                         jdbcTemplate,
@@ -262,7 +329,9 @@ public class JdbcTemplateLockProvider extends StorageBasedLockProvider {
                         lockedByValue,
                         useDbTime,
                         isolationLevel,
-                        throwUnexpectedException);
+                        throwUnexpectedException,
+                        useAutoCommit,
+                        useMySqlUpsert);
             }
         }
     }
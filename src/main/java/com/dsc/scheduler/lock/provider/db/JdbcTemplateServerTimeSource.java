@@ -0,0 +1,58 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.support.NonNull;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the time of the database with the expression used by the server time
+ * dialects, see {@link JdbcTemplateLockProvider.Configuration.Builder#usingDbTime()}.
+ * The dialect is detected on first use.
+ *
+ * @author typhoon
+ **/
+public class JdbcTemplateServerTimeSource implements ServerTimeSource {
+    private final JdbcTemplateLockProvider.Configuration configuration;
+    private volatile SqlStatementsSource statementsSource;
+
+    public JdbcTemplateServerTimeSource(@NonNull JdbcTemplateLockProvider.Configuration configuration) {
+        this.configuration = requireNonNull(configuration, "configuration can not be null");
+        if (!configuration.getUseDbTime()) {
+            throw new IllegalArgumentException("The server time is only known to the dialects using the database time");
+        }
+    }
+
+    @Override
+    @NonNull
+    public Instant serverTime() {
+        SqlStatementsSource source = statementsSource();
+        return requireNonNull(configuration.getJdbcTemplate().query(source.getServerTimeStatement(),
+                (ResultSetExtractor<Instant>) rs -> rs.next() ? source.serverTime(rs) : null), "no server time");
+    }
+
+    private SqlStatementsSource statementsSource() {
+        SqlStatementsSource current = statementsSource;
+        if (current == null) {
+            current = SqlStatementsSource.create(configuration);
+            statementsSource = current;
+        }
+        return current;
+    }
+}
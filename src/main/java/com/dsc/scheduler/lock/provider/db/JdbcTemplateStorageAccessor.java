@@ -13,15 +13,20 @@
  */
 package com.dsc.scheduler.lock.provider.db;
 
+import com.dsc.scheduler.lock.ClockProvider;
 import com.dsc.scheduler.lock.LockConfiguration;
 import com.dsc.scheduler.lock.provider.AbstractStorageAccessor;
 import com.dsc.scheduler.lock.provider.db.JdbcTemplateLockProvider;
 import com.dsc.scheduler.support.NonNull;
 import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -30,20 +35,43 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Map;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static java.util.Objects.requireNonNull;
 
 /** Spring JdbcTemplate based implementation usable in JTA environment */
 class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
-    private final NamedParameterJdbcTemplate jdbcTemplate;
+    /** Keeps IN lists below the limits of all supported databases. */
+    private static final int MAX_IN_LIST_SIZE = 500;
+    /** Record locked twice to check how the MySQL upsert reports held locks. */
+    static final String UPSERT_PROBE_NAME = "dcs-upsert-probe";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final TransactionTemplate transactionTemplate;
     private final JdbcTemplateLockProvider.Configuration configuration;
-    private SqlStatementsSource sqlStatementsSource;
+    private volatile Statements statements;
 
     JdbcTemplateStorageAccessor(@NonNull JdbcTemplateLockProvider.Configuration configuration) {
         requireNonNull(configuration, "configuration can not be null");
-        this.jdbcTemplate = new NamedParameterJdbcTemplate(configuration.getJdbcTemplate());
+        this.jdbcTemplate = configuration.getJdbcTemplate();
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
         this.configuration = configuration;
         PlatformTransactionManager transactionManager = configuration.getTransactionManager() != null
                 ? configuration.getTransactionManager()
@@ -61,8 +89,7 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
     @Override
     public boolean insertRecord(@NonNull LockConfiguration lockConfiguration) {
         try {
-            String sql = sqlStatementsSource().getInsertStatement();
-            return execute(sql, lockConfiguration);
+            return execute(statements().insert, lockConfiguration);
         } catch (DuplicateKeyException | ConcurrencyFailureException | TransactionSystemException e) {
             logger.debug("Duplicate key", e);
             return false;
@@ -75,14 +102,61 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
         }
     }
 
+    /**
+     * Inserts all missing records as a single JDBC batch in one transaction. Unless
+     * the dialect skips existing records by itself, the existing lock names are read
+     * first. If another node inserts one of the records in the meantime, the batch
+     * is rolled back and the records are inserted one by one.
+     */
+    @Override
+    public void insertMissingRecords(@NonNull Collection<String> lockNames) {
+        Statements statements = statements();
+        List<String> missing = new ArrayList<>(new TreeSet<>(lockNames));
+        if (!statements.source.isInsertIfAbsent()) {
+            missing.removeAll(existingNames(statements.source.getExistingNamesStatement(), missing));
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Instant now = ClockProvider.now();
+        List<LockConfiguration> configurations = new ArrayList<>(missing.size());
+        for (String lockName : missing) {
+            configurations.add(new LockConfiguration(now, lockName, Duration.ZERO, Duration.ZERO));
+        }
+        try {
+            executeBatch(statements.insert, configurations);
+        } catch (DuplicateKeyException | ConcurrencyFailureException | TransactionSystemException e) {
+            logger.debug("Lock records inserted in parallel, inserting one by one", e);
+            configurations.forEach(this::insertRecord);
+        }
+    }
+
+    private Set<String> existingNames(String sql, List<String> lockNames) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < lockNames.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> chunk = lockNames.subList(from, Math.min(from + MAX_IN_LIST_SIZE, lockNames.size()));
+            existing.addAll(namedParameterJdbcTemplate.queryForList(sql, Collections.singletonMap("names", chunk), String.class));
+        }
+        return existing;
+    }
+
+    /** The dialects with an upsert statement create the missing record on update. */
+    @Override
+    public boolean updateCreatesRecord() {
+        return statements().upsert != null;
+    }
+
     @Override
     public boolean updateRecord(@NonNull LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getUpdateStatement();
         try {
-            return execute(sql, lockConfiguration);
+            return execute(statements().updateOrUpsert(), lockConfiguration);
         } catch (ConcurrencyFailureException e) {
             logger.debug("Serialization exception", e);
             return false;
+        } catch (DuplicateKeyException e) {
+            // upserts of several nodes raced for a missing record
+            logger.debug("Duplicate key", e);
+            return false;
         } catch (DataIntegrityViolationException | TransactionSystemException | UncategorizedSQLException e) {
             if (configuration.isThrowUnexpectedException()) {
                 throw e;
@@ -92,12 +166,69 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
         }
     }
 
+    /**
+     * Executes all the updates as a single JDBC batch in one transaction. The
+     * records are updated in lock name order, so that concurrent batches of
+     * several nodes do not deadlock on each other.
+     */
     @Override
-    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getExtendStatement();
+    public Set<String> updateRecords(@NonNull Collection<LockConfiguration> lockConfigurations) {
+        SqlStatement update = statements().updateOrUpsert();
+        List<LockConfiguration> configurations = new ArrayList<>(lockConfigurations);
+        configurations.sort(Comparator.comparing(LockConfiguration::getName));
+        try {
+            int[] updateCounts = executeBatch(update, configurations);
+            Set<String> updated = new HashSet<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] > 0) {
+                    updated.add(configurations.get(i).getName());
+                } else if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                    // we can not tell if we have the lock, it's safer to not execute the task
+                    logger.warn("JDBC driver did not report update count of lock={}, please disable batch rewriting",
+                            configurations.get(i).getName());
+                }
+            }
+            return updated;
+        } catch (ConcurrencyFailureException e) {
+            logger.debug("Serialization exception", e);
+            return Collections.emptySet();
+        } catch (DataIntegrityViolationException | TransactionSystemException | UncategorizedSQLException e) {
+            if (configuration.isThrowUnexpectedException()) {
+                throw e;
+            }
+            logger.error("Unexpected exception", e);
+            return Collections.emptySet();
+        }
+    }
+
+    @Override
+    public Optional<Duration> getRemainingLockTime(@NonNull LockConfiguration lockConfiguration) {
+        Statements statements = statements();
+        try {
+            if (configuration.getUseAutoCommit()) {
+                return inAutoCommitConnection(statements.lockedUntil, con -> {
+                    try (PreparedStatement ps = con.prepareStatement(statements.lockedUntil.getSql())) {
+                        statements.lockedUntil.bind(ps, lockConfiguration);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            return rs.next() ? Optional.of(statements.source.remainingLockTime(rs)) : Optional.empty();
+                        }
+                    }
+                });
+            }
+            List<Duration> remaining = jdbcTemplate.query(statements.lockedUntil.getSql(),
+                    ps -> statements.lockedUntil.bind(ps, lockConfiguration),
+                    (rs, rowNum) -> statements.source.remainingLockTime(rs));
+            return remaining.stream().findFirst();
+        } catch (DataAccessException e) {
+            logger.debug("Can not read lock_until of lock={}", lockConfiguration.getName(), e);
+            return Optional.empty();
+        }
+    }
 
+    @Override
+    public boolean extend(@NonNull LockConfiguration lockConfiguration) {
         logger.debug("Extending lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
-        return execute(sql, lockConfiguration);
+        return execute(statements().extend, lockConfiguration);
     }
 
     @Override
@@ -113,26 +244,158 @@ class JdbcTemplateStorageAccessor extends AbstractStorageAccessor {
     }
 
     private void doUnlock(LockConfiguration lockConfiguration) {
-        String sql = sqlStatementsSource().getUnlockStatement();
-        execute(sql, lockConfiguration);
+        execute(statements().unlock, lockConfiguration);
     }
 
     @SuppressWarnings("ConstantConditions")
-    private boolean execute(String sql, LockConfiguration lockConfiguration) throws TransactionException {
-        return transactionTemplate.execute(status -> jdbcTemplate.update(sql, params(lockConfiguration)) > 0);
+    private boolean execute(SqlStatement statement, LockConfiguration lockConfiguration) throws TransactionException {
+        if (configuration.getUseAutoCommit()) {
+            return inAutoCommitConnection(statement, con -> {
+                try (PreparedStatement ps = con.prepareStatement(statement.getSql())) {
+                    statement.bind(ps, lockConfiguration);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+        }
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.update(statement.getSql(), ps -> statement.bind(ps, lockConfiguration)) > 0);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private int[] executeBatch(SqlStatement statement, List<LockConfiguration> lockConfigurations)
+            throws TransactionException {
+        BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(@NonNull PreparedStatement ps, int i) throws SQLException {
+                statement.bind(ps, lockConfigurations.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lockConfigurations.size();
+            }
+        };
+        if (configuration.getUseAutoCommit()) {
+            return inLocalTransaction(statement, con -> {
+                try (PreparedStatement ps = con.prepareStatement(statement.getSql())) {
+                    for (int i = 0; i < setter.getBatchSize(); i++) {
+                        setter.setValues(ps, i);
+                        ps.addBatch();
+                    }
+                    return ps.executeBatch();
+                }
+            });
+        }
+        return transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(statement.getSql(), setter));
+    }
+
+    /**
+     * Runs the action on a connection taken straight from the DataSource. Unlike
+     * {@link JdbcTemplate}, it does not join a transaction bound to the current
+     * thread, so the lock statement is committed on its own right away.
+     */
+    private <T> T inAutoCommitConnection(SqlStatement statement, ConnectionCallback<T> action) {
+        DataSource dataSource = requireNonNull(jdbcTemplate.getDataSource(), "dataSource can not be null");
+        try (Connection con = dataSource.getConnection()) {
+            if (con.getAutoCommit()) {
+                return action.doInConnection(con);
+            }
+            con.setAutoCommit(true);
+            try {
+                return action.doInConnection(con);
+            } finally {
+                con.setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            throw translate(statement, e);
+        }
     }
 
-    @NonNull
-    private Map<String, Object> params(@NonNull LockConfiguration lockConfiguration) {
-        return sqlStatementsSource().params(lockConfiguration);
+    private <T> T inLocalTransaction(SqlStatement statement, ConnectionCallback<T> action) {
+        return inAutoCommitConnection(statement, con -> {
+            con.setAutoCommit(false);
+            try {
+                T result = action.doInConnection(con);
+                con.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        });
     }
 
-    private SqlStatementsSource sqlStatementsSource() {
-        synchronized (configuration) {
-            if (sqlStatementsSource == null) {
-                sqlStatementsSource = SqlStatementsSource.create(configuration);
+    private DataAccessException translate(SqlStatement statement, SQLException e) {
+        DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("Lock", statement.getSql(), e);
+        return translated != null ? translated : new UncategorizedSQLException("Lock", statement.getSql(), e);
+    }
+
+    /**
+     * Compiles the statements right away, see {@link JdbcTemplateLockProvider#checkStatements()}.
+     */
+    void checkStatements() {
+        statements();
+    }
+
+    /**
+     * The statements are compiled on first use, as the dialect may have to be read
+     * from the database. Racing threads compile equal statements, so no lock is
+     * needed to publish them.
+     */
+    private Statements statements() {
+        Statements current = statements;
+        if (current == null) {
+            current = new Statements(SqlStatementsSource.create(configuration), configuration);
+            if (current.upsert != null && configuration.getUseMySqlUpsert()) {
+                checkAffectedRows(current.upsert);
             }
-            return sqlStatementsSource;
+            statements = current;
+        }
+        return current;
+    }
+
+    /**
+     * Runs the MySQL upsert twice on a probe record. The second run finds the record
+     * locked by the first one and leaves it unchanged, which only connections
+     * reporting affected rows count as 0. With found rows every lock held by another
+     * node would look acquired, so the statements are never used then and every
+     * lock attempt fails.
+     */
+    private void checkAffectedRows(SqlStatement upsert) {
+        LockConfiguration probe = new LockConfiguration(ClockProvider.now(), UPSERT_PROBE_NAME, Duration.ofMinutes(1),
+                Duration.ZERO);
+        execute(upsert, probe);
+        if (execute(upsert, probe)) {
+            throw new IllegalStateException("The MySQL upsert counts a held lock as acquired, the connections report "
+                    + "found rows instead of affected rows. Open them with useAffectedRows=true or do not use the upsert");
+        }
+    }
+
+    /** Statements of the dialect compiled to positional SQL, see {@link SqlStatement}. */
+    private static final class Statements {
+        private final SqlStatementsSource source;
+        private final SqlStatement insert;
+        private final SqlStatement update;
+        private final SqlStatement upsert;
+        private final SqlStatement extend;
+        private final SqlStatement unlock;
+        private final SqlStatement lockedUntil;
+
+        private Statements(SqlStatementsSource source, JdbcTemplateLockProvider.Configuration configuration) {
+            this.source = source;
+            this.insert = SqlStatement.compile(source.getInsertStatement(), configuration);
+            this.update = SqlStatement.compile(source.getUpdateStatement(), configuration);
+            String upsertStatement = source.getUpsertStatement();
+            this.upsert = upsertStatement != null ? SqlStatement.compile(upsertStatement, configuration) : null;
+            this.extend = SqlStatement.compile(source.getExtendStatement(), configuration);
+            this.unlock = SqlStatement.compile(source.getUnlockStatement(), configuration);
+            this.lockedUntil = SqlStatement.compile(source.getLockedUntilStatement(), configuration);
+        }
+
+        private SqlStatement updateOrUpsert() {
+            return upsert != null ? upsert : update;
         }
     }
 }
@@ -13,12 +13,6 @@
  */
 package com.dsc.scheduler.lock.provider.db;
 
-import com.dsc.scheduler.lock.LockConfiguration;
-import com.dsc.scheduler.support.NonNull;
-
-import java.util.HashMap;
-import java.util.Map;
-
 class MySqlServerTimeStatementsSource extends SqlStatementsSource {
     private static final String now = "UTC_TIMESTAMP(3)";
     private static final String lockAtMostFor = "TIMESTAMPADD(MICROSECOND, :lockAtMostForMicros, " + now + ")";
@@ -33,6 +27,31 @@ class MySqlServerTimeStatementsSource extends SqlStatementsSource {
                 + lockedBy() + ") VALUES(:name, " + lockAtMostFor + ", " + now + ", :lockedBy)";
     }
 
+    @Override
+    boolean isInsertIfAbsent() {
+        return true;
+    }
+
+    /**
+     * Only with {@link JdbcTemplateLockProvider.Configuration#getUseMySqlUpsert()},
+     * as the update count of an unchanged duplicate row is 1 with found rows.
+     * With affected rows it is 1 for an inserted and 2 for an updated record, 0 if
+     * the lock is held by someone else. lock_until is assigned last, the other
+     * assignments compare the old value.
+     */
+    @Override
+    String getUpsertStatement() {
+        if (!configuration.getUseMySqlUpsert()) {
+            return null;
+        }
+        String expired = lockUntil() + " <= " + now;
+        return "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy()
+                + ") VALUES(:name, " + lockAtMostFor + ", " + now + ", :lockedBy) ON DUPLICATE KEY UPDATE "
+                + lockedBy() + " = IF(" + expired + ", :lockedBy, " + lockedBy() + "), "
+                + lockedAt() + " = IF(" + expired + ", " + now + ", " + lockedAt() + "), "
+                + lockUntil() + " = IF(" + expired + ", " + lockAtMostFor + ", " + lockUntil() + ")";
+    }
+
     @Override
     public String getUpdateStatement() {
         return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + ", " + lockedAt() + " = " + now
@@ -53,13 +72,7 @@ class MySqlServerTimeStatementsSource extends SqlStatementsSource {
     }
 
     @Override
-    @NonNull
-    Map<String, Object> params(@NonNull LockConfiguration lockConfiguration) {
-        Map<String,Object> map = new HashMap<>();
-        map.put("name",lockConfiguration.getName());
-        map.put("lockedBy",configuration.getLockedByValue());
-        map.put("lockAtMostForMicros",lockConfiguration.getLockAtMostFor().toNanos() / 1_000);
-        map.put("lockAtLeastForMicros",lockConfiguration.getLockAtLeastFor().toNanos() / 1_000);
-        return map;
+    String currentDbTime() {
+        return now;
     }
 }
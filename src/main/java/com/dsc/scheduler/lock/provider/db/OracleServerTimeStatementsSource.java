@@ -0,0 +1,82 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+/**
+ * Oracle dialect using the database time. The lock record is inserted or taken over
+ * in one MERGE statement, which updates the row only if the lock has expired.
+ */
+class OracleServerTimeStatementsSource extends SqlStatementsSource {
+    private static final String now = "SYS_EXTRACT_UTC(SYSTIMESTAMP)";
+    private static final String lockAtMostFor = "(" + now + " + NUMTODSINTERVAL(:lockAtMostForMicros / 1000000, 'SECOND'))";
+
+    OracleServerTimeStatementsSource(JdbcTemplateLockProvider.Configuration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    String getInsertStatement() {
+        return merge(false);
+    }
+
+    @Override
+    boolean isInsertIfAbsent() {
+        return true;
+    }
+
+    @Override
+    String getUpsertStatement() {
+        return merge(true);
+    }
+
+    /** Oracle updates a matched row only if the WHERE clause of the UPDATE holds. */
+    private String merge(boolean takeOverExpired) {
+        return "MERGE INTO " + tableName() + " USING (SELECT 1 FROM dual) ON (" + name() + " = :name)"
+                + (takeOverExpired ? " WHEN MATCHED THEN UPDATE SET " + lockUntil() + " = " + lockAtMostFor + ", "
+                        + lockedAt() + " = " + now + ", " + lockedBy() + " = :lockedBy WHERE " + lockUntil() + " <= "
+                        + now : "")
+                + " WHEN NOT MATCHED THEN INSERT (" + name() + ", " + lockUntil() + ", " + lockedAt() + ", "
+                + lockedBy() + ") VALUES (:name, " + lockAtMostFor + ", " + now + ", :lockedBy)";
+    }
+
+    @Override
+    public String getUpdateStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + ", " + lockedAt() + " = " + now
+                + ", " + lockedBy() + " = :lockedBy WHERE " + name() + " = :name AND " + lockUntil() + " <= " + now;
+    }
+
+    @Override
+    public String getUnlockStatement() {
+        String lockAtLeastFor = "(" + lockedAt() + " + NUMTODSINTERVAL(:lockAtLeastForMicros / 1000000, 'SECOND'))";
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = CASE WHEN " + lockAtLeastFor + " > " + now
+                + " THEN " + lockAtLeastFor + " ELSE " + now + " END WHERE " + name() + " = :name AND " + lockedBy()
+                + " = :lockedBy";
+    }
+
+    @Override
+    public String getExtendStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + " WHERE " + name()
+                + " = :name AND " + lockedBy() + " = :lockedBy AND " + lockUntil() + " > " + now;
+    }
+
+    @Override
+    String currentDbTime() {
+        return now;
+    }
+
+    @Override
+    String getServerTimeStatement() {
+        return "SELECT " + now + " FROM DUAL";
+    }
+}
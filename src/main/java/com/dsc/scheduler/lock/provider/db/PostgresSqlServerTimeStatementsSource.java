@@ -0,0 +1,73 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+/**
+ * Postgres dialect using the database time, see {@link PostgresSqlStatementsSource}
+ * for the single statement acquisition.
+ */
+class PostgresSqlServerTimeStatementsSource extends SqlStatementsSource {
+    private static final String now = "timezone('utc', now())";
+    private static final String lockAtMostFor = "(" + now + " + :lockAtMostForMicros * INTERVAL '1 microsecond')";
+
+    PostgresSqlServerTimeStatementsSource(JdbcTemplateLockProvider.Configuration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    String getInsertStatement() {
+        return insert() + " ON CONFLICT (" + name() + ") DO NOTHING";
+    }
+
+    @Override
+    boolean isInsertIfAbsent() {
+        return true;
+    }
+
+    @Override
+    String getUpsertStatement() {
+        return insert() + " ON CONFLICT (" + name() + ") DO UPDATE SET " + lockUntil() + " = " + lockAtMostFor + ", "
+                + lockedAt() + " = " + now + ", " + lockedBy() + " = :lockedBy WHERE " + tableName() + "." + lockUntil()
+                + " <= " + now;
+    }
+
+    private String insert() {
+        return "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy()
+                + ") VALUES(:name, " + lockAtMostFor + ", " + now + ", :lockedBy)";
+    }
+
+    @Override
+    public String getUpdateStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + ", " + lockedAt() + " = " + now
+                + ", " + lockedBy() + " = :lockedBy WHERE " + name() + " = :name AND " + lockUntil() + " <= " + now;
+    }
+
+    @Override
+    public String getUnlockStatement() {
+        String lockAtLeastFor = "(" + lockedAt() + " + :lockAtLeastForMicros * INTERVAL '1 microsecond')";
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = GREATEST(" + lockAtLeastFor + ", " + now
+                + ") WHERE " + name() + " = :name AND " + lockedBy() + " = :lockedBy";
+    }
+
+    @Override
+    public String getExtendStatement() {
+        return "UPDATE " + tableName() + " SET " + lockUntil() + " = " + lockAtMostFor + " WHERE " + name()
+                + " = :name AND " + lockedBy() + " = :lockedBy AND " + lockUntil() + " > " + now;
+    }
+
+    @Override
+    String currentDbTime() {
+        return now;
+    }
+}
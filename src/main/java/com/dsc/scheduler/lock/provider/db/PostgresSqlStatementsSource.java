@@ -0,0 +1,42 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+/**
+ * Postgres dialect using the application time. The lock record is inserted or
+ * taken over in one statement by INSERT ... ON CONFLICT DO UPDATE, which updates
+ * the row only if the lock has expired.
+ */
+class PostgresSqlStatementsSource extends SqlStatementsSource {
+    PostgresSqlStatementsSource(JdbcTemplateLockProvider.Configuration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    String getInsertStatement() {
+        return super.getInsertStatement() + " ON CONFLICT (" + name() + ") DO NOTHING";
+    }
+
+    @Override
+    boolean isInsertIfAbsent() {
+        return true;
+    }
+
+    @Override
+    String getUpsertStatement() {
+        return super.getInsertStatement() + " ON CONFLICT (" + name() + ") DO UPDATE SET " + lockUntil()
+                + " = :lockUntil, " + lockedAt() + " = :now, " + lockedBy() + " = :lockedBy WHERE " + tableName()
+                + "." + lockUntil() + " <= :now";
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.lock.provider.AsyncStorageBasedLockProvider;
+import com.dsc.scheduler.support.LockException;
+import com.dsc.scheduler.support.NonNull;
+import com.dsc.scheduler.support.Nullable;
+import com.dsc.scheduler.util.Utils;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.CompletionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lock provider over an R2DBC {@link ConnectionFactory}, locking the same table with
+ * the same statements as {@link JdbcTemplateLockProvider}, so both can be used on the
+ * same table. No thread waits for the database in {@link #lockAsync}, the blocking
+ * {@link #lock} waits for it in the calling thread.
+ *
+ * <p>
+ * The dialect is chosen by the database product, read from the metadata of the
+ * connection factory unless set explicitly. Needs spring-r2dbc and, for the
+ * dialects, spring-jdbc on the classpath.
+ *
+ * @author typhoon
+ **/
+public class R2dbcLockProvider extends AsyncStorageBasedLockProvider implements LockProvider {
+
+    public R2dbcLockProvider(@NonNull ConnectionFactory connectionFactory) {
+        this(Configuration.builder().withConnectionFactory(connectionFactory).build());
+    }
+
+    public R2dbcLockProvider(@NonNull Configuration configuration) {
+        super(new R2dbcStorageAccessor(DatabaseClient.create(configuration.connectionFactory), configuration.statements));
+    }
+
+    @Override
+    public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        try {
+            return lockAsync(lockConfiguration).toCompletableFuture().join().map(SimpleLock.class::cast);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new LockException("Can not lock " + lockConfiguration.getName(), cause);
+        }
+    }
+
+    public static final class Configuration {
+        private final ConnectionFactory connectionFactory;
+        private final JdbcTemplateLockProvider.Configuration statements;
+
+        private Configuration(ConnectionFactory connectionFactory, JdbcTemplateLockProvider.Configuration statements) {
+            this.connectionFactory = connectionFactory;
+            this.statements = statements;
+        }
+
+        public ConnectionFactory getConnectionFactory() {
+            return connectionFactory;
+        }
+
+        public DatabaseProduct getDatabaseProduct() {
+            return statements.getDatabaseProduct();
+        }
+
+        public String getTableName() {
+            return statements.getTableName();
+        }
+
+        public JdbcTemplateLockProvider.ColumnNames getColumnNames() {
+            return statements.getColumnNames();
+        }
+
+        public TimeZone getTimeZone() {
+            return statements.getTimeZone();
+        }
+
+        public String getLockedByValue() {
+            return statements.getLockedByValue();
+        }
+
+        public boolean getUseDbTime() {
+            return statements.getUseDbTime();
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public static final class Builder {
+            private ConnectionFactory connectionFactory;
+            private DatabaseProduct databaseProduct;
+            private String tableName = "shedlock";
+            private TimeZone timeZone;
+            private String lockedByValue = Utils.getHostname();
+            private JdbcTemplateLockProvider.ColumnNames columnNames =
+                    new JdbcTemplateLockProvider.ColumnNames("name", "lock_until", "locked_at", "locked_by");
+            private boolean dbUpperCase = false;
+            private boolean useDbTime = false;
+
+            public Builder withConnectionFactory(@NonNull ConnectionFactory connectionFactory) {
+                this.connectionFactory = connectionFactory;
+                return this;
+            }
+
+            /**
+             * This is only needed if the name in the metadata of the connection factory
+             * does not match a database product.
+             *
+             * @param databaseProduct Database product
+             * @return builder
+             */
+            public Builder withDatabaseProduct(@Nullable DatabaseProduct databaseProduct) {
+                this.databaseProduct = databaseProduct;
+                return this;
+            }
+
+            public Builder withTableName(@NonNull String tableName) {
+                this.tableName = tableName;
+                return this;
+            }
+
+            public Builder withTimeZone(TimeZone timeZone) {
+                this.timeZone = timeZone;
+                return this;
+            }
+
+            public Builder withColumnNames(JdbcTemplateLockProvider.ColumnNames columnNames) {
+                this.columnNames = columnNames;
+                return this;
+            }
+
+            public Builder withDbUpperCase(final boolean dbUpperCase) {
+                this.dbUpperCase = dbUpperCase;
+                return this;
+            }
+
+            /**
+             * Value stored in 'locked_by' column. Please use only for debugging purposes.
+             * @param lockedBy who get the lock
+             * @return  builder
+             */
+            public Builder withLockedByValue(String lockedBy) {
+                this.lockedByValue = lockedBy;
+                return this;
+            }
+
+            public Builder usingDbTime() {
+                this.useDbTime = true;
+                return this;
+            }
+
+            public Configuration build() {
+                requireNonNull(connectionFactory, "connectionFactory can not be null");
+                JdbcTemplateLockProvider.Configuration.Builder statements = JdbcTemplateLockProvider.Configuration.builder()
+                        // only carries the dialect, the product is known so it is never connected
+                        .withJdbcTemplate(new JdbcTemplate())
+                        .withDatabaseProduct(databaseProduct != null ? databaseProduct
+                                : DatabaseProduct.matchProductName(connectionFactory.getMetadata().getName()))
+                        .withTableName(tableName)
+                        .withTimeZone(timeZone)
+                        .withColumnNames(columnNames)
+                        .withDbUpperCase(dbUpperCase)
+                        .withLockedByValue(lockedByValue);
+                if (useDbTime) {
+                    statements.usingDbTime();
+                }
+                return new Configuration(connectionFactory, statements.build());
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.provider.AsyncStorageAccessor;
+import com.dsc.scheduler.support.NonNull;
+import io.r2dbc.spi.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link AsyncStorageAccessor} running the statements of the {@link SqlStatementsSource}
+ * dialects through R2DBC. The named parameters of the dialects are bound by the
+ * {@link DatabaseClient}, which translates them to the bind markers of the driver.
+ * Each statement runs on its own connection in auto-commit mode.
+ *
+ * @author typhoon
+ **/
+class R2dbcStorageAccessor implements AsyncStorageAccessor {
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcStorageAccessor.class);
+
+    private final DatabaseClient databaseClient;
+    private final SqlStatementsSource source;
+    private final SqlStatement insert;
+    private final SqlStatement update;
+    private final SqlStatement extend;
+    private final SqlStatement unlock;
+    private final SqlStatement lockedUntil;
+
+    /**
+     * @param databaseClient client of the lock database
+     * @param configuration dialect of the statements, with the database product set
+     */
+    R2dbcStorageAccessor(@NonNull DatabaseClient databaseClient, @NonNull JdbcTemplateLockProvider.Configuration configuration) {
+        this.databaseClient = requireNonNull(databaseClient, "databaseClient can not be null");
+        requireNonNull(configuration.getDatabaseProduct(), "databaseProduct can not be null");
+        this.source = SqlStatementsSource.create(configuration);
+        this.insert = SqlStatement.compile(source.getInsertStatement(), configuration);
+        this.update = SqlStatement.compile(source.getUpdateStatement(), configuration);
+        this.extend = SqlStatement.compile(source.getExtendStatement(), configuration);
+        this.unlock = SqlStatement.compile(source.getUnlockStatement(), configuration);
+        this.lockedUntil = SqlStatement.compile(source.getLockedUntilStatement(), configuration);
+    }
+
+    @Override
+    public CompletionStage<Boolean> insertRecord(LockConfiguration lockConfiguration) {
+        return execute(insert, lockConfiguration)
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    logger.debug("Duplicate key", e);
+                    return Mono.just(false);
+                })
+                .toFuture();
+    }
+
+    @Override
+    public CompletionStage<Boolean> updateRecord(LockConfiguration lockConfiguration) {
+        return execute(update, lockConfiguration)
+                .onErrorResume(ConcurrencyFailureException.class, e -> {
+                    logger.debug("Serialization exception", e);
+                    return Mono.just(false);
+                })
+                .toFuture();
+    }
+
+    @Override
+    public CompletionStage<Optional<Duration>> getRemainingLockTime(LockConfiguration lockConfiguration) {
+        return spec(lockedUntil, lockConfiguration)
+                .map((row, metadata) -> remainingLockTime(row))
+                .first()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    logger.debug("Can not read lock_until of lock={}", lockConfiguration.getName(), e);
+                    return Mono.just(Optional.empty());
+                })
+                .toFuture();
+    }
+
+    /**
+     * See {@link SqlStatementsSource#remainingLockTime(java.sql.ResultSet)}.
+     */
+    private Duration remainingLockTime(Row row) {
+        LocalDateTime until = requireNonNull(row.get(0, LocalDateTime.class));
+        if (source.currentDbTime() != null) {
+            // both timestamps come from the database clock, the application clock is not involved
+            return Duration.between(localDateTime(row.get(1)), until);
+        }
+        return Duration.between(ClockProvider.now(), lockedUntil.toInstant(until));
+    }
+
+    /**
+     * Some databases return the current time with its offset, lock_until holds the
+     * local time of the same session.
+     */
+    private static LocalDateTime localDateTime(Object time) {
+        if (time instanceof OffsetDateTime) {
+            return ((OffsetDateTime) time).toLocalDateTime();
+        }
+        if (time instanceof ZonedDateTime) {
+            return ((ZonedDateTime) time).toLocalDateTime();
+        }
+        return (LocalDateTime) requireNonNull(time);
+    }
+
+    @Override
+    public CompletionStage<Void> unlock(LockConfiguration lockConfiguration) {
+        return execute(unlock, lockConfiguration).then().toFuture();
+    }
+
+    @Override
+    public CompletionStage<Boolean> extend(LockConfiguration lockConfiguration) {
+        logger.debug("Extending lock={} until={}", lockConfiguration.getName(), lockConfiguration.getLockAtMostUntil());
+        return execute(extend, lockConfiguration).toFuture();
+    }
+
+    private Mono<Boolean> execute(SqlStatement statement, LockConfiguration lockConfiguration) {
+        return spec(statement, lockConfiguration).fetch().rowsUpdated().map(count -> count > 0);
+    }
+
+    private DatabaseClient.GenericExecuteSpec spec(SqlStatement statement, LockConfiguration lockConfiguration) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(statement.getNamedSql());
+        for (Map.Entry<String, Object> value : statement.namedValues(lockConfiguration).entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Statement of {@link SqlStatementsSource} compiled once into positional SQL.
+ * The named parameters are resolved to {@link Param} up front, so binding a lock
+ * configuration sets the values straight onto the {@link PreparedStatement}
+ * without parsing the SQL or building a parameter map. Clients binding named
+ * parameters themselves, like R2DBC, take the named SQL and {@link #namedValues}.
+ *
+ * @author typhoon
+ **/
+final class SqlStatement {
+    private final String namedSql;
+    private final String sql;
+    private final Param[] params;
+    private final String lockedBy;
+    private final TimeZone timeZone;
+    /**
+     * Calendar of the time zone handed to {@link PreparedStatement#setTimestamp(int, Timestamp, Calendar)}.
+     * Drivers set their time on it, so each thread binds with its own copy.
+     */
+    private final ThreadLocal<Calendar> calendar;
+
+    private SqlStatement(String namedSql, String sql, Param[] params, String lockedBy, TimeZone timeZone) {
+        this.namedSql = namedSql;
+        this.sql = sql;
+        this.params = params;
+        this.lockedBy = lockedBy;
+        this.timeZone = timeZone;
+        this.calendar = timeZone != null ? ThreadLocal.withInitial(() -> Calendar.getInstance(timeZone)) : null;
+    }
+
+    /**
+     * Replaces the named parameters (:name) by positional ones. Quoted literals and
+     * {@code ::} casts are left alone.
+     */
+    static SqlStatement compile(String namedSql, JdbcTemplateLockProvider.Configuration configuration) {
+        StringBuilder sql = new StringBuilder(namedSql.length());
+        List<Param> params = new ArrayList<>();
+        int i = 0;
+        while (i < namedSql.length()) {
+            char c = namedSql.charAt(i);
+            if (c == '\'') {
+                int end = namedSql.indexOf('\'', i + 1);
+                end = end < 0 ? namedSql.length() : end + 1;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < namedSql.length() && namedSql.charAt(i + 1) == ':') {
+                sql.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < namedSql.length() && Character.isJavaIdentifierStart(namedSql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < namedSql.length() && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                    end++;
+                }
+                params.add(Param.forName(namedSql.substring(i + 1, end)));
+                sql.append('?');
+                i = end;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+        return new SqlStatement(namedSql, sql.toString(), params.toArray(new Param[0]),
+                configuration.getLockedByValue(), configuration.getTimeZone());
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    String getNamedSql() {
+        return namedSql;
+    }
+
+    /**
+     * Values of the named parameters, the times as {@link LocalDateTime} in the
+     * configured time zone like the JDBC timestamps.
+     *
+     * @param lockConfiguration lock configuration
+     * @return value by parameter name, each parameter once
+     */
+    Map<String, Object> namedValues(LockConfiguration lockConfiguration) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        Instant now = null;
+        for (Param param : params) {
+            switch (param) {
+                case NAME:
+                    values.put(param.parameterName, lockConfiguration.getName());
+                    break;
+                case LOCKED_BY:
+                    values.put(param.parameterName, lockedBy);
+                    break;
+                case LOCK_UNTIL:
+                    values.put(param.parameterName, localDateTime(lockConfiguration.getLockAtMostUntil()));
+                    break;
+                case NOW:
+                    if (now == null) {
+                        now = ClockProvider.now();
+                    }
+                    values.put(param.parameterName, localDateTime(now));
+                    break;
+                case UNLOCK_TIME:
+                    values.put(param.parameterName, localDateTime(lockConfiguration.getUnlockTime()));
+                    break;
+                case LOCK_AT_MOST_FOR_MICROS:
+                    values.put(param.parameterName, lockConfiguration.getLockAtMostFor().toNanos() / 1_000);
+                    break;
+                case LOCK_AT_LEAST_FOR_MICROS:
+                    values.put(param.parameterName, lockConfiguration.getLockAtLeastFor().toNanos() / 1_000);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown parameter " + param);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param time timestamp of the lock table
+     * @return the instant of a {@link LocalDateTime} bound by {@link #namedValues}
+     */
+    Instant toInstant(LocalDateTime time) {
+        return time.atZone(zoneId()).toInstant();
+    }
+
+    private LocalDateTime localDateTime(Instant time) {
+        return LocalDateTime.ofInstant(time, zoneId());
+    }
+
+    private ZoneId zoneId() {
+        return timeZone != null ? timeZone.toZoneId() : ZoneId.systemDefault();
+    }
+
+    void bind(PreparedStatement ps, LockConfiguration lockConfiguration) throws SQLException {
+        Instant now = null;
+        for (int i = 0; i < params.length; i++) {
+            int index = i + 1;
+            switch (params[i]) {
+                case NAME:
+                    ps.setString(index, lockConfiguration.getName());
+                    break;
+                case LOCKED_BY:
+                    ps.setString(index, lockedBy);
+                    break;
+                case LOCK_UNTIL:
+                    setTimestamp(ps, index, lockConfiguration.getLockAtMostUntil());
+                    break;
+                case NOW:
+                    if (now == null) {
+                        now = ClockProvider.now();
+                    }
+                    setTimestamp(ps, index, now);
+                    break;
+                case UNLOCK_TIME:
+                    setTimestamp(ps, index, lockConfiguration.getUnlockTime());
+                    break;
+                case LOCK_AT_MOST_FOR_MICROS:
+                    ps.setLong(index, lockConfiguration.getLockAtMostFor().toNanos() / 1_000);
+                    break;
+                case LOCK_AT_LEAST_FOR_MICROS:
+                    ps.setLong(index, lockConfiguration.getLockAtLeastFor().toNanos() / 1_000);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown parameter " + params[i]);
+            }
+        }
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, Instant time) throws SQLException {
+        if (calendar == null) {
+            ps.setTimestamp(index, Timestamp.from(time));
+        } else {
+            ps.setTimestamp(index, Timestamp.from(time), calendar.get());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    /** Named parameters the statements of {@link SqlStatementsSource} may use. */
+    enum Param {
+        NAME("name"),
+        LOCKED_BY("lockedBy"),
+        LOCK_UNTIL("lockUntil"),
+        NOW("now"),
+        UNLOCK_TIME("unlockTime"),
+        LOCK_AT_MOST_FOR_MICROS("lockAtMostForMicros"),
+        LOCK_AT_LEAST_FOR_MICROS("lockAtLeastForMicros");
+
+        private final String parameterName;
+
+        Param(String parameterName) {
+            this.parameterName = parameterName;
+        }
+
+        static Param forName(String parameterName) {
+            for (Param param : values()) {
+                if (param.parameterName.equals(parameterName)) {
+                    return param;
+                }
+            }
+            throw new IllegalArgumentException("Unknown SQL parameter :" + parameterName);
+        }
+    }
+}
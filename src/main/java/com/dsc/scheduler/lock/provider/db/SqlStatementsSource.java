@@ -14,18 +14,18 @@
 package com.dsc.scheduler.lock.provider.db;
 
 import com.dsc.scheduler.lock.ClockProvider;
-import com.dsc.scheduler.lock.LockConfiguration;
-import com.dsc.scheduler.support.NonNull;
+import com.dsc.scheduler.support.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.ConnectionCallback;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
 
 class SqlStatementsSource {
@@ -45,15 +45,13 @@ class SqlStatementsSource {
             logger.debug("Using {}", statementsSource.getClass().getSimpleName());
             return statementsSource;
         } else {
-            logger.debug("Using SqlStatementsSource");
-            return new SqlStatementsSource(configuration);
-//            if (Objects.equals(databaseProduct, DatabaseProduct.POSTGRES_SQL)) {
-//                logger.debug("Using PostgresSqlStatementsSource");
-//                return new PostgresSqlStatementsSource(configuration);
-//            } else {
-//                logger.debug("Using SqlStatementsSource");
-//                return new SqlStatementsSource(configuration);
-//            }
+            if (Objects.equals(databaseProduct, DatabaseProduct.POSTGRES_SQL)) {
+                logger.debug("Using PostgresSqlStatementsSource");
+                return new PostgresSqlStatementsSource(configuration);
+            } else {
+                logger.debug("Using SqlStatementsSource");
+                return new SqlStatementsSource(configuration);
+            }
         }
     }
 
@@ -71,33 +69,34 @@ class SqlStatementsSource {
         }
     }
 
-    @NonNull
-    Map<String, Object> params(@NonNull LockConfiguration lockConfiguration) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("name",lockConfiguration.getName());
-        map.put("lockUntil",timestamp(lockConfiguration.getLockAtMostUntil()));
-        map.put("now",timestamp(ClockProvider.now()));
-        map.put("lockedBy",configuration.getLockedByValue());
-        map.put("unlockTime",timestamp(lockConfiguration.getUnlockTime()));
-        return map;
+    String getInsertStatement() {
+        return "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy()
+                + ") VALUES(:name, :lockUntil, :now, :lockedBy)";
     }
 
-    @NonNull
-    private Object timestamp(Instant time) {
-        TimeZone timeZone = configuration.getTimeZone();
-        if (timeZone == null) {
-            return Timestamp.from(time);
-        } else {
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(Date.from(time));
-            calendar.setTimeZone(timeZone);
-            return calendar;
-        }
+    /**
+     * @return true if {@link #getInsertStatement()} skips existing records by itself,
+     *         otherwise the existing records are read before inserting the missing ones
+     */
+    boolean isInsertIfAbsent() {
+        return false;
     }
 
-    String getInsertStatement() {
-        return "INSERT INTO " + tableName() + "(" + name() + ", " + lockUntil() + ", " + lockedAt() + ", " + lockedBy()
-                + ") VALUES(:name, :lockUntil, :now, :lockedBy)";
+    String getExistingNamesStatement() {
+        return "SELECT " + name() + " FROM " + tableName() + " WHERE " + name() + " IN (:names)";
+    }
+
+    /**
+     * Statement which inserts the record, or updates it if the lock has expired,
+     * see {@link #getUpdateStatement()}. The update count tells if the lock was
+     * acquired, so the insert and update of the lock record become a single
+     * statement.
+     *
+     * @return the statement, or null if the dialect can not do it
+     */
+    @Nullable
+    String getUpsertStatement() {
+        return null;
     }
 
     public String getUpdateStatement() {
@@ -110,6 +109,57 @@ class SqlStatementsSource {
                 + lockedBy() + " = :lockedBy AND " + lockUntil() + " > :now";
     }
 
+    /** Reads lock_until of a held lock, see {@link #remainingLockTime(ResultSet)}. */
+    String getLockedUntilStatement() {
+        String dbTime = currentDbTime();
+        return "SELECT " + lockUntil() + (dbTime != null ? ", " + dbTime : "") + " FROM " + tableName() + " WHERE "
+                + name() + " = :name";
+    }
+
+    /**
+     * @param rs row of {@link #getLockedUntilStatement()}
+     * @return how much longer the lock is held, measured by the clock that wrote lock_until
+     */
+    Duration remainingLockTime(ResultSet rs) throws SQLException {
+        if (currentDbTime() != null) {
+            // both timestamps come from the database clock, the application clock is not involved
+            return Duration.between(rs.getTimestamp(2).toInstant(), rs.getTimestamp(1).toInstant());
+        }
+        TimeZone timeZone = configuration.getTimeZone();
+        Timestamp lockUntil = timeZone == null
+                ? rs.getTimestamp(1)
+                : rs.getTimestamp(1, Calendar.getInstance(timeZone));
+        return Duration.between(ClockProvider.now(), lockUntil.toInstant());
+    }
+
+    /**
+     * @return SQL expression of the current database time used by the server time
+     *         dialects, null if the time comes from the application
+     */
+    @Nullable
+    String currentDbTime() {
+        return null;
+    }
+
+    /**
+     * Reads the time of the database, see {@link #serverTime(ResultSet)}.
+     *
+     * @return the query, null if the time comes from the application
+     */
+    @Nullable
+    String getServerTimeStatement() {
+        String dbTime = currentDbTime();
+        return dbTime != null ? "SELECT " + dbTime : null;
+    }
+
+    /**
+     * @param rs row of {@link #getServerTimeStatement()}
+     * @return the time of the database, the server time dialects compute it in UTC
+     */
+    Instant serverTime(ResultSet rs) throws SQLException {
+        return rs.getTimestamp(1, Calendar.getInstance(TimeZone.getTimeZone("UTC"))).toInstant();
+    }
+
     public String getUnlockStatement() {
         return "UPDATE " + tableName() + " SET " + lockUntil() + " = :unlockTime WHERE " + name() + " = :name";
     }
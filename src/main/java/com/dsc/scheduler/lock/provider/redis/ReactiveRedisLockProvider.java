@@ -0,0 +1,161 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.redis;
+
+import com.dsc.scheduler.lock.AbstractAsyncSimpleLock;
+import com.dsc.scheduler.lock.AsyncLockProvider;
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.support.LockException;
+import com.dsc.scheduler.support.NonNull;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveScriptingCommands;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.ACQUIRE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.EXPIRE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.RELEASE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.SUCCESS;
+
+/**
+ * {@link RedisLockProvider} which also locks without blocking. The
+ * {@link AsyncLockProvider} operations run the same scripts by EVALSHA through a
+ * {@link ReactiveStringRedisTemplate}, their stages are completed by the threads of
+ * the Redis client. Needs a reactive connection factory, e.g. Lettuce, and
+ * reactor-core on the classpath.
+ *
+ * <p>
+ * Both paths share the owner tokens and the locks known to be held, so the locks of
+ * one path can be released by the other one.
+ */
+public class ReactiveRedisLockProvider extends RedisLockProvider implements AsyncLockProvider {
+    private final ReactiveStringRedisTemplate reactiveTemplate;
+
+    /**
+     * @param redisConn connection factory of the blocking operations
+     * @param reactiveRedisConn connection factory of the non blocking operations,
+     *            usually the same factory
+     * @param environment environment is part of the key, see {@link RedisLockProvider}
+     */
+    public ReactiveRedisLockProvider(@NonNull RedisConnectionFactory redisConn,
+                                     @NonNull ReactiveRedisConnectionFactory reactiveRedisConn,
+                                     @NonNull String environment) {
+        super(redisConn, environment);
+        this.reactiveTemplate = new ReactiveStringRedisTemplate(reactiveRedisConn);
+    }
+
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        byte[] key = serializedKey(lockConfiguration.getName());
+        byte[] token = nextToken();
+        long lockAtMostFor = getMsUntil(lockConfiguration.getLockAtMostUntil());
+        return executeAsync(ACQUIRE, key, token, toBytes(lockAtMostFor))
+                .map(result -> {
+                    if (SUCCESS.equals(result)) {
+                        knownHeldLocks.acquired(lockConfiguration.getName());
+                        return Optional.<AsyncSimpleLock>of(new ReactiveRedisLock(key, token, this, lockConfiguration));
+                    }
+                    if (result < 0) {
+                        knownHeldLocks.held(lockConfiguration, Duration.ofMillis(-result));
+                    }
+                    return Optional.<AsyncSimpleLock>empty();
+                })
+                .onErrorMap(e -> new LockException("Can not obtain lock", e))
+                .toFuture();
+    }
+
+    /**
+     * See {@link RedisLockProvider#loadScripts()}, a NOSCRIPT reply loads all
+     * scripts again and runs this one by EVAL.
+     */
+    private Mono<Long> executeAsync(RedisLockScripts.LockScript script, byte[] key, byte[]... args) {
+        ByteBuffer[] keyAndArgs = new ByteBuffer[args.length + 1];
+        keyAndArgs[0] = ByteBuffer.wrap(key);
+        for (int i = 0; i < args.length; i++) {
+            keyAndArgs[i + 1] = ByteBuffer.wrap(args[i]);
+        }
+        return reactiveTemplate.execute(connection -> {
+            ReactiveScriptingCommands commands = connection.scriptingCommands();
+            return commands.<Long>evalSha(script.getSha1(), ReturnType.INTEGER, 1, keyAndArgs)
+                    .onErrorResume(RedisLockProvider::isNoScriptError, e -> loadScripts(commands)
+                            .thenMany(commands.<Long>eval(ByteBuffer.wrap(script.getBody()), ReturnType.INTEGER, 1, keyAndArgs)));
+        }).next().defaultIfEmpty(0L);
+    }
+
+    private static Mono<Void> loadScripts(ReactiveScriptingCommands commands) {
+        return Flux.fromIterable(RedisLockScripts.ALL)
+                .concatMap(script -> commands.scriptLoad(ByteBuffer.wrap(script.getBody())))
+                .then();
+    }
+
+    private static final class ReactiveRedisLock extends AbstractAsyncSimpleLock {
+        private final byte[] key;
+        private final byte[] token;
+        private final ReactiveRedisLockProvider lockProvider;
+
+        private ReactiveRedisLock(byte[] key, byte[] token, ReactiveRedisLockProvider lockProvider,
+                                  LockConfiguration lockConfiguration) {
+            super(lockConfiguration);
+            this.key = key;
+            this.token = token;
+            this.lockProvider = lockProvider;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            long keepLockFor = getMsUntil(lockConfiguration.getLockAtLeastUntil());
+            // lock at least until is in the past
+            Mono<Long> unlock = keepLockFor <= 0
+                    ? lockProvider.executeAsync(RELEASE, key, token)
+                    : lockProvider.executeAsync(EXPIRE, key, token, toBytes(keepLockFor));
+            return unlock
+                    .onErrorMap(e -> new LockException("Can not remove node", e))
+                    .doOnTerminate(() -> lockProvider.knownHeldLocks.released(lockConfiguration.getName()))
+                    .then()
+                    .toFuture();
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            long lockAtMostFor = getMsUntil(newConfiguration.getLockAtMostUntil());
+            Mono<Long> extend = lockAtMostFor > 0
+                    ? lockProvider.executeAsync(EXPIRE, key, token, toBytes(lockAtMostFor))
+                    : Mono.just(0L);
+            return extend
+                    .map(result -> {
+                        if (SUCCESS.equals(result)) {
+                            return Optional.<AsyncSimpleLock>of(new ReactiveRedisLock(key, token, lockProvider, newConfiguration));
+                        }
+                        lockProvider.knownHeldLocks.released(lockConfiguration.getName());
+                        return Optional.<AsyncSimpleLock>empty();
+                    })
+                    .onErrorMap(e -> new LockException("Can not extend lock", e))
+                    .toFuture();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.redis;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.support.NonNull;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the cluster members in a Redis sorted set, scored by the epoch millis at
+ * which the registration expires. Expired members are trimmed on every heartbeat.
+ *
+ * @author typhoon
+ **/
+public class RedisClusterMembership implements ClusterMembership {
+    private static final String KEY_PREFIX_DEFAULT = "dcs-members";
+    private static final String ENV_DEFAULT = "default";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+
+    public RedisClusterMembership(@NonNull RedisConnectionFactory redisConn) {
+        this(redisConn, ENV_DEFAULT);
+    }
+
+    /**
+     * @param redisConn
+     *            RedisConnectionFactory
+     * @param environment
+     *            environment is part of the key, same as in {@link RedisLockProvider}
+     */
+    public RedisClusterMembership(@NonNull RedisConnectionFactory redisConn, @NonNull String environment) {
+        this(new StringRedisTemplate(redisConn), environment);
+    }
+
+    public RedisClusterMembership(@NonNull StringRedisTemplate redisTemplate, @NonNull String environment) {
+        this.redisTemplate = requireNonNull(redisTemplate);
+        this.key = KEY_PREFIX_DEFAULT + ":" + requireNonNull(environment);
+    }
+
+    @Override
+    public void heartbeat(@NonNull String nodeId, @NonNull Duration ttl) {
+        long now = ClockProvider.now().toEpochMilli();
+        ZSetOperations<String, String> members = redisTemplate.opsForZSet();
+        members.add(key, nodeId, now + ttl.toMillis());
+        members.removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+    }
+
+    @Override
+    @NonNull
+    public Map<String, Instant> liveMembers() {
+        long now = ClockProvider.now().toEpochMilli();
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(key, now, Double.POSITIVE_INFINITY);
+        Map<String, Instant> members = new HashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                members.put(tuple.getValue(), Instant.ofEpochMilli(tuple.getScore().longValue()));
+            }
+        }
+        return members;
+    }
+
+    @Override
+    public void leave(@NonNull String nodeId) {
+        redisTemplate.opsForZSet().remove(key, nodeId);
+    }
+}
@@ -17,38 +17,73 @@ package com.dsc.scheduler.lock.provider.redis;
 import com.dsc.scheduler.lock.AbstractSimpleLock;
 import com.dsc.scheduler.lock.ClockProvider;
 import com.dsc.scheduler.lock.LockConfiguration;
-import com.dsc.scheduler.lock.LockProvider;
 import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.lock.provider.ExtensibleLockProvider;
+import com.dsc.scheduler.lock.provider.KnownHeldLocks;
 import com.dsc.scheduler.support.LockException;
 import com.dsc.scheduler.support.NonNull;
 import com.dsc.scheduler.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
-import static org.springframework.data.redis.connection.RedisStringCommands.SetOption.SET_IF_ABSENT;
-
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.lang.Boolean.TRUE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.ACQUIRE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.EXPIRE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.RELEASE;
+import static com.dsc.scheduler.lock.provider.redis.RedisLockScripts.SUCCESS;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
- * Uses Redis's `SET resource-name anystring NX PX max-lock-ms-time` as locking
+ * Uses Redis's `SET resource-name owner-token NX PX max-lock-ms-time` as locking
  * mechanism. See https://redis.io/commands/set
+ *
+ * <p>
+ * All lock operations are Lua scripts invoked by EVALSHA (see
+ * {@link RedisLockScripts}), unlocking only touches the key while it still holds
+ * the owner token of the acquisition. Each operation is a single round trip.
+ * {@link #loadScripts()} loads the scripts when the provider is set up, a server
+ * which lost them, e.g. after a restart or a failover, gets all of them again on
+ * the first NOSCRIPT reply.
+ *
+ * <p>
+ * Extending the lock sets a new PEXPIRE on the key if it is still owned by the
+ * lock, the owner token stays the same.
+ *
+ * <p>
+ * A failed attempt learns the PTTL of the key from the same script, further
+ * attempts fail locally until then, see {@link KnownHeldLocks}.
+ *
+ * <p>
+ * {@link ReactiveRedisLockProvider} runs the same scripts without blocking.
  */
-public class RedisLockProvider implements LockProvider {
+public class RedisLockProvider implements ExtensibleLockProvider {
+    private static final Logger logger = LoggerFactory.getLogger(RedisLockProvider.class);
+
     private static final String KEY_PREFIX_DEFAULT = "job-lock";
     private static final String ENV_DEFAULT = "default";
 
     private final StringRedisTemplate redisTemplate;
     private final String environment;
     private final String keyPrefix;
+    private final String tokenPrefix = Utils.getHostname() + ":" + UUID.randomUUID() + ":";
+    private final AtomicLong tokenSequence = new AtomicLong();
+    private final Map<String, byte[]> serializedKeys = new ConcurrentHashMap<>();
+    final KnownHeldLocks knownHeldLocks = new KnownHeldLocks();
 
     public RedisLockProvider(@NonNull RedisConnectionFactory redisConn) {
         this(redisConn, ENV_DEFAULT);
@@ -104,69 +139,148 @@ public class RedisLockProvider implements LockProvider {
         this.keyPrefix = keyPrefix;
     }
 
+    /**
+     * Loads the lock scripts into the script cache of the server by SCRIPT LOAD, so
+     * that the first lock operations do not pay for a NOSCRIPT round trip. Failures
+     * are only logged, the scripts are then loaded on first use.
+     */
+    public void loadScripts() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                loadScripts(connection.scriptingCommands());
+                return null;
+            }, false);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load the lock scripts, they are loaded on first use instead", e);
+        }
+    }
+
+    private static void loadScripts(RedisScriptingCommands commands) {
+        for (RedisLockScripts.LockScript script : RedisLockScripts.ALL) {
+            commands.scriptLoad(script.getBody());
+        }
+    }
+
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
-        String key = buildKey(lockConfiguration.getName());
-        Expiration expiration = getExpiration(lockConfiguration.getLockAtMostUntil());
-        if (TRUE.equals(tryToSetExpiration(redisTemplate, key, expiration, SET_IF_ABSENT))) {
-            return Optional.of(new RedisLock(key, redisTemplate, lockConfiguration));
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            return Optional.empty();
+        }
+        byte[] key = serializedKey(lockConfiguration.getName());
+        byte[] token = nextToken();
+        long lockAtMostFor = getMsUntil(lockConfiguration.getLockAtMostUntil());
+        Long result = execute(ACQUIRE, key, token, toBytes(lockAtMostFor));
+        if (SUCCESS.equals(result)) {
+            knownHeldLocks.acquired(lockConfiguration.getName());
+            return Optional.of(new RedisLock(key, token, this, lockConfiguration));
         } else {
+            if (result != null && result < 0) {
+                knownHeldLocks.held(lockConfiguration, Duration.ofMillis(-result));
+            }
             return Optional.empty();
         }
     }
 
-    private static Expiration getExpiration(Instant until) {
-        return Expiration.from(getMsUntil(until), TimeUnit.MILLISECONDS);
-    }
-
-    private static long getMsUntil(Instant until) {
+    static long getMsUntil(Instant until) {
         return Duration.between(ClockProvider.now(), until).toMillis();
     }
 
     private static final class RedisLock extends AbstractSimpleLock {
 
-        private final String key;
-        private final StringRedisTemplate redisTemplate;
+        private final byte[] key;
+        private final byte[] token;
+        private final RedisLockProvider lockProvider;
 
-        private RedisLock(String key, StringRedisTemplate redisTemplate, LockConfiguration lockConfiguration) {
+        private RedisLock(byte[] key, byte[] token, RedisLockProvider lockProvider, LockConfiguration lockConfiguration) {
             super(lockConfiguration);
             this.key = key;
-            this.redisTemplate = redisTemplate;
+            this.token = token;
+            this.lockProvider = lockProvider;
         }
 
         @Override
         public void doUnlock() {
-            Expiration keepLockFor = getExpiration(lockConfiguration.getLockAtLeastUntil());
-            // lock at least until is in the past
-            if (keepLockFor.getExpirationTimeInMilliseconds() <= 0) {
-                try {
-                    redisTemplate.delete(key);
-                } catch (Exception e) {
-                    throw new LockException("Can not remove node", e);
+            long keepLockFor = getMsUntil(lockConfiguration.getLockAtLeastUntil());
+            try {
+                // lock at least until is in the past
+                if (keepLockFor <= 0) {
+                    lockProvider.execute(RELEASE, key, token);
+                } else {
+                    lockProvider.execute(EXPIRE, key, token, toBytes(keepLockFor));
+                }
+            } catch (Exception e) {
+                throw new LockException("Can not remove node", e);
+            } finally {
+                lockProvider.knownHeldLocks.released(lockConfiguration.getName());
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            long lockAtMostFor = getMsUntil(newConfiguration.getLockAtMostUntil());
+            try {
+                if (lockAtMostFor > 0 && SUCCESS.equals(lockProvider.execute(EXPIRE, key, token, toBytes(lockAtMostFor)))) {
+                    return Optional.of(new RedisLock(key, token, lockProvider, newConfiguration));
                 }
-            } else {
-                tryToSetExpiration(this.redisTemplate, key, keepLockFor, RedisStringCommands.SetOption.SET_IF_PRESENT);
+                lockProvider.knownHeldLocks.released(lockConfiguration.getName());
+                return Optional.empty();
+            } catch (Exception e) {
+                throw new LockException("Can not extend lock", e);
             }
         }
     }
 
     String buildKey(String lockName) {
-        return String.format("%s:%s:%s", keyPrefix, environment, lockName);
+        return keyPrefix + ":" + environment + ":" + lockName;
     }
 
-    private static Boolean tryToSetExpiration(
-            StringRedisTemplate template, String key, Expiration expiration, RedisStringCommands.SetOption option) {
-        return template.execute(
-                connection -> {
-                    byte[] serializedKey = ((RedisSerializer<String>) template.getKeySerializer()).serialize(key);
-                    byte[] serializedValue = ((RedisSerializer<String>) template.getValueSerializer())
-                            .serialize(String.format("ADDED:%s@%s", Utils.toIsoString(ClockProvider.now()), Utils.getHostname()));
-                    return connection.set(serializedKey, serializedValue, expiration, option);
+    @SuppressWarnings("unchecked")
+    byte[] serializedKey(String lockName) {
+        return serializedKeys.computeIfAbsent(lockName, name ->
+                ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(buildKey(name)));
+    }
+
+    byte[] nextToken() {
+        return (tokenPrefix + tokenSequence.incrementAndGet()).getBytes(UTF_8);
+    }
+
+    static byte[] toBytes(long value) {
+        return Long.toString(value).getBytes(US_ASCII);
+    }
+
+    /**
+     * Runs the script by EVALSHA. When Redis does not know the script, e.g. after a
+     * restart, all scripts are loaded again and this one runs by EVAL.
+     */
+    private Long execute(RedisLockScripts.LockScript script, byte[] key, byte[]... args) {
+        byte[][] keyAndArgs = new byte[args.length + 1][];
+        keyAndArgs[0] = key;
+        System.arraycopy(args, 0, keyAndArgs, 1, args.length);
+        return redisTemplate.execute(
+                (RedisCallback<Long>) connection -> {
+                    try {
+                        return connection.scriptingCommands().evalSha(script.getSha1(), ReturnType.INTEGER, 1, keyAndArgs);
+                    } catch (RuntimeException e) {
+                        if (!isNoScriptError(e)) {
+                            throw e;
+                        }
+                        loadScripts(connection.scriptingCommands());
+                        return connection.scriptingCommands().eval(script.getBody(), ReturnType.INTEGER, 1, keyAndArgs);
+                    }
                 },
                 false);
     }
 
+    static boolean isNoScriptError(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current.getMessage() != null && current.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static class Builder {
         private final StringRedisTemplate redisTemplate;
         private String environment = ENV_DEFAULT;
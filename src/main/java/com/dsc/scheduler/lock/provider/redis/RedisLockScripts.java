@@ -0,0 +1,77 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.redis;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Lua scripts used by the Redis lock providers. Every script gets the lock key as
+ * KEYS[1] and the owner token of the acquisition as ARGV[1], so a node can never
+ * release or prolong a lock that has since been acquired by someone else.
+ * All scripts return an integer, 1 if the operation succeeded.
+ */
+final class RedisLockScripts {
+
+    /**
+     * ARGV[2] - lockAtMostFor in milliseconds. If the lock is held, returns the
+     * negated PTTL of the key, 0 if it is not known.
+     */
+    static final LockScript ACQUIRE = new LockScript(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end "
+                    + "local ttl = redis.call('PTTL', KEYS[1]) "
+                    + "if ttl > 0 then return -ttl else return 0 end");
+
+    static final LockScript RELEASE = new LockScript(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end");
+
+    /**
+     * Shortens the lock to lockAtLeastFor on unlock, or prolongs it on extend.
+     * ARGV[2] - new expiration in milliseconds.
+     */
+    static final LockScript EXPIRE = new LockScript(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end");
+
+    /** Scripts loaded into the script cache of the server up front. */
+    static final List<LockScript> ALL = Collections.unmodifiableList(Arrays.asList(ACQUIRE, RELEASE, EXPIRE));
+
+    static final Long SUCCESS = 1L;
+
+    private RedisLockScripts() {}
+
+    static final class LockScript {
+        private final String sha1;
+        private final byte[] body;
+
+        private LockScript(String script) {
+            this.sha1 = RedisScript.of(script, Long.class).getSha1();
+            this.body = script.getBytes(UTF_8);
+        }
+
+        /** SHA1 digest of the script used by EVALSHA. */
+        String getSha1() {
+            return sha1;
+        }
+
+        /** Script source used by EVAL when the script is not cached by the server yet. */
+        byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.redis;
+
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.support.NonNull;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the time of the Redis server with the TIME command, in microseconds.
+ *
+ * @author typhoon
+ **/
+public class RedisServerTimeSource implements ServerTimeSource {
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisServerTimeSource(@NonNull RedisConnectionFactory redisConn) {
+        this(new StringRedisTemplate(redisConn));
+    }
+
+    public RedisServerTimeSource(@NonNull StringRedisTemplate redisTemplate) {
+        this.redisTemplate = requireNonNull(redisTemplate);
+    }
+
+    @Override
+    @NonNull
+    public Instant serverTime() {
+        Long micros = redisTemplate.execute(
+                (RedisCallback<Long>) connection -> connection.serverCommands().time(TimeUnit.MICROSECONDS));
+        requireNonNull(micros, "no server time");
+        return Instant.ofEpochSecond(micros / 1_000_000, (micros % 1_000_000) * 1_000);
+    }
+}
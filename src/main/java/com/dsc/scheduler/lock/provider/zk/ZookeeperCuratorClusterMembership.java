@@ -0,0 +1,96 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.zk;
+
+import com.dsc.scheduler.lock.provider.ClusterMembership;
+import com.dsc.scheduler.support.LockException;
+import com.dsc.scheduler.support.NonNull;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.PathUtils;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the cluster members as EPHEMERAL nodes, one per node id. ZooKeeper
+ * removes the node when the session of its member expires, so a registered
+ * member is alive until then and is reported with {@link Instant#MAX}.
+ *
+ * @author typhoon
+ **/
+public class ZookeeperCuratorClusterMembership implements ClusterMembership {
+    public static final String DEFAULT_PATH = "/shedlock-members";
+    private final String path;
+    private final CuratorFramework client;
+
+    public ZookeeperCuratorClusterMembership(@NonNull CuratorFramework client) {
+        this(client, DEFAULT_PATH);
+    }
+
+    public ZookeeperCuratorClusterMembership(@NonNull CuratorFramework client, @NonNull String path) {
+        this.client = requireNonNull(client);
+        this.path = PathUtils.validatePath(path);
+    }
+
+    @Override
+    public void heartbeat(@NonNull String nodeId, @NonNull Duration ttl) {
+        try {
+            client.create()
+                    .creatingParentContainersIfNeeded()
+                    .withMode(CreateMode.EPHEMERAL)
+                    .forPath(ZKPaths.makePath(path, nodeId));
+        } catch (KeeperException.NodeExistsException e) {
+            // still registered in the current session
+        } catch (Exception e) {
+            throw new LockException("Can not register cluster member", e);
+        }
+    }
+
+    @Override
+    @NonNull
+    public Map<String, Instant> liveMembers() {
+        try {
+            List<String> children = client.getChildren().forPath(path);
+            Map<String, Instant> members = new HashMap<>();
+            for (String child : children) {
+                members.put(child, Instant.MAX);
+            }
+            return members;
+        } catch (KeeperException.NoNodeException e) {
+            return Collections.emptyMap();
+        } catch (Exception e) {
+            throw new LockException("Can not read cluster members", e);
+        }
+    }
+
+    @Override
+    public void leave(@NonNull String nodeId) {
+        try {
+            client.delete().forPath(ZKPaths.makePath(path, nodeId));
+        } catch (KeeperException.NoNodeException e) {
+            // not registered
+        } catch (Exception e) {
+            throw new LockException("Can not remove cluster member", e);
+        }
+    }
+}
@@ -13,15 +13,21 @@
  */
 package com.dsc.scheduler.lock.provider.zk;
 
+import com.dsc.scheduler.lock.AbstractAsyncSimpleLock;
 import com.dsc.scheduler.lock.AbstractSimpleLock;
+import com.dsc.scheduler.lock.AsyncLockProvider;
+import com.dsc.scheduler.lock.AsyncSimpleLock;
 import com.dsc.scheduler.lock.ClockProvider;
 import com.dsc.scheduler.lock.LockConfiguration;
-import com.dsc.scheduler.lock.LockProvider;
 import com.dsc.scheduler.lock.SimpleLock;
+import com.dsc.scheduler.lock.provider.ExtensibleLockProvider;
+import com.dsc.scheduler.lock.provider.KnownHeldLocks;
 import com.dsc.scheduler.support.LockException;
 import com.dsc.scheduler.support.NonNull;
 import com.dsc.scheduler.util.Utils;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.utils.PathUtils;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
@@ -29,9 +35,12 @@ import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
@@ -40,11 +49,26 @@ import static java.util.Objects.requireNonNull;
  * Locks kept using ZooKeeper. When locking, creates a PERSISTENT node with node
  * name = lock_name and value containing lock data, when unlocking, keeps the
  * node and changes node data to release the lock.
+ *
+ * <p>
+ * The lock remembers the data version of the node it has written, extending and
+ * unlocking only succeed while nobody else has changed the node since.
+ *
+ * <p>
+ * When the node data shows the lock is held, further attempts fail locally
+ * until then, see {@link KnownHeldLocks}.
+ *
+ * <p>
+ * The {@link AsyncLockProvider} operations run the same steps as background
+ * operations of Curator, their stages are completed by the ZooKeeper event thread.
  */
-public class ZookeeperCuratorLockProvider implements LockProvider {
+public class ZookeeperCuratorLockProvider implements ExtensibleLockProvider, AsyncLockProvider {
     public static final String DEFAULT_PATH = "/shedlock";
+    /** Data version of a freshly created node. */
+    private static final int INITIAL_VERSION = 0;
     private final String path;
     private final CuratorFramework client;
+    private final KnownHeldLocks knownHeldLocks = new KnownHeldLocks();
 
     private static final Logger logger = LoggerFactory.getLogger(ZookeeperCuratorLockProvider.class);
 
@@ -60,12 +84,16 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
     @Override
     @NonNull
     public Optional<SimpleLock> lock(@NonNull LockConfiguration lockConfiguration) {
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            return Optional.empty();
+        }
         String nodePath = getNodePath(lockConfiguration.getName());
 
         try {
             Stat stat = new Stat();
             byte[] data = client.getData().storingStatIn(stat).forPath(nodePath);
             if (isLocked(data)) {
+                rememberHeld(lockConfiguration, data);
                 return Optional.empty();
             } else {
                 return tryLock(lockConfiguration, nodePath, stat);
@@ -73,7 +101,8 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         } catch (KeeperException.NoNodeException e) {
             // node does not exists
             if (createNode(lockConfiguration, nodePath)) {
-                return Optional.of(new CuratorLock(nodePath, client, lockConfiguration));
+                knownHeldLocks.acquired(lockConfiguration.getName());
+                return Optional.of(new CuratorLock(nodePath, client, lockConfiguration, INITIAL_VERSION, knownHeldLocks));
             } else {
                 logger.trace("Node not created, must have been created by a parallel process");
                 return Optional.empty();
@@ -83,13 +112,116 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         }
     }
 
+    @Override
+    @NonNull
+    public CompletionStage<Optional<AsyncSimpleLock>> lockAsync(@NonNull LockConfiguration lockConfiguration) {
+        CompletableFuture<Optional<AsyncSimpleLock>> result = new CompletableFuture<>();
+        if (knownHeldLocks.isHeld(lockConfiguration.getName())) {
+            result.complete(Optional.empty());
+            return result;
+        }
+        String nodePath = getNodePath(lockConfiguration.getName());
+        inBackground(result, "Can not obtain lock node", callback -> client.getData().inBackground(callback).forPath(nodePath),
+                (code, event) -> {
+                    if (code == KeeperException.Code.OK) {
+                        if (isLocked(event.getData())) {
+                            rememberHeld(lockConfiguration, event.getData());
+                            result.complete(Optional.empty());
+                        } else {
+                            tryLockAsync(lockConfiguration, nodePath, event.getStat().getVersion(), result);
+                        }
+                    } else if (code == KeeperException.Code.NONODE) {
+                        createNodeAsync(lockConfiguration, nodePath, result);
+                    } else {
+                        result.completeExceptionally(
+                                new LockException("Can not obtain lock node", KeeperException.create(code, nodePath)));
+                    }
+                });
+        return result;
+    }
+
+    private void tryLockAsync(LockConfiguration lockConfiguration, String nodePath, int version,
+                              CompletableFuture<Optional<AsyncSimpleLock>> result) {
+        inBackground(result, "Can not obtain lock node", callback -> client.setData()
+                        .withVersion(version)
+                        .inBackground(callback)
+                        .forPath(nodePath, serialize(lockConfiguration.getLockAtMostUntil())),
+                (code, event) -> {
+                    if (code == KeeperException.Code.OK) {
+                        knownHeldLocks.acquired(lockConfiguration.getName());
+                        result.complete(Optional.of(new AsyncCuratorLock(nodePath, client, lockConfiguration,
+                                event.getStat().getVersion(), knownHeldLocks)));
+                    } else if (code == KeeperException.Code.BADVERSION) {
+                        logger.trace("Node value can not be set, must have been set by a parallel process");
+                        result.complete(Optional.empty());
+                    } else {
+                        result.completeExceptionally(
+                                new LockException("Can not obtain lock node", KeeperException.create(code, nodePath)));
+                    }
+                });
+    }
+
+    private void createNodeAsync(LockConfiguration lockConfiguration, String nodePath,
+                                 CompletableFuture<Optional<AsyncSimpleLock>> result) {
+        inBackground(result, "Can not create node", callback -> client.create()
+                        .creatingParentsIfNeeded()
+                        .withMode(CreateMode.PERSISTENT)
+                        .inBackground(callback)
+                        .forPath(nodePath, serialize(lockConfiguration.getLockAtMostUntil())),
+                (code, event) -> {
+                    if (code == KeeperException.Code.OK) {
+                        knownHeldLocks.acquired(lockConfiguration.getName());
+                        result.complete(Optional.of(new AsyncCuratorLock(nodePath, client, lockConfiguration,
+                                INITIAL_VERSION, knownHeldLocks)));
+                    } else if (code == KeeperException.Code.NODEEXISTS) {
+                        logger.trace("Node not created, must have been created by a parallel process");
+                        result.complete(Optional.empty());
+                    } else {
+                        result.completeExceptionally(
+                                new LockException("Can not create node", KeeperException.create(code, nodePath)));
+                    }
+                });
+    }
+
+    /**
+     * Starts a background operation and handles its result code. Failures to start
+     * the operation and exceptions of the handler fail the result, Curator would
+     * only log them.
+     */
+    private static void inBackground(CompletableFuture<?> result, String message, BackgroundOperation operation,
+                                     ResultHandler handler) {
+        BackgroundCallback callback = (client, event) -> {
+            try {
+                handler.handle(KeeperException.Code.get(event.getResultCode()), event);
+            } catch (Exception e) {
+                result.completeExceptionally(new LockException(message, e));
+            }
+        };
+        try {
+            operation.start(callback);
+        } catch (Exception e) {
+            result.completeExceptionally(new LockException(message, e));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BackgroundOperation {
+        void start(BackgroundCallback callback) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ResultHandler {
+        void handle(KeeperException.Code code, CuratorEvent event) throws Exception;
+    }
+
     private Optional<SimpleLock> tryLock(LockConfiguration lockConfiguration, String nodePath, Stat stat)
             throws Exception {
         try {
-            client.setData()
+            Stat newStat = client.setData()
                     .withVersion(stat.getVersion())
                     .forPath(nodePath, serialize(lockConfiguration.getLockAtMostUntil()));
-            return Optional.of(new CuratorLock(nodePath, client, lockConfiguration));
+            knownHeldLocks.acquired(lockConfiguration.getName());
+            return Optional.of(new CuratorLock(nodePath, client, lockConfiguration, newStat.getVersion(), knownHeldLocks));
         } catch (KeeperException.BadVersionException e) {
             logger.trace("Node value can not be set, must have been set by a parallel process");
             return Optional.empty();
@@ -130,6 +262,14 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
         }
     }
 
+    private void rememberHeld(LockConfiguration lockConfiguration, byte[] data) {
+        try {
+            knownHeldLocks.held(lockConfiguration, Duration.between(ClockProvider.now(), parse(data)));
+        } catch (RuntimeException e) {
+            // written by previous version of the library, nothing to remember
+        }
+    }
+
     private static byte[] serialize(Instant date) {
         return Utils.toIsoString(date).getBytes(UTF_8);
     }
@@ -145,21 +285,116 @@ public class ZookeeperCuratorLockProvider implements LockProvider {
     private static final class CuratorLock extends AbstractSimpleLock {
         private final String nodePath;
         private final CuratorFramework client;
+        private final int version;
+        private final KnownHeldLocks knownHeldLocks;
 
-        private CuratorLock(String nodePath, CuratorFramework client, LockConfiguration lockConfiguration) {
+        private CuratorLock(String nodePath, CuratorFramework client, LockConfiguration lockConfiguration, int version,
+                            KnownHeldLocks knownHeldLocks) {
             super(lockConfiguration);
             this.nodePath = nodePath;
             this.client = client;
+            this.version = version;
+            this.knownHeldLocks = knownHeldLocks;
         }
 
         @Override
         public void doUnlock() {
             try {
                 Instant unlockTime = lockConfiguration.getUnlockTime();
-                client.setData().forPath(nodePath, serialize(unlockTime));
+                client.setData().withVersion(version).forPath(nodePath, serialize(unlockTime));
+            } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+                logger.debug("Lock {} has been taken over by another process, not releasing it", nodePath);
             } catch (Exception e) {
                 throw new LockException("Can not remove node", e);
+            } finally {
+                knownHeldLocks.released(lockConfiguration.getName());
+            }
+        }
+
+        @Override
+        public Optional<SimpleLock> doExtend(LockConfiguration newConfiguration) {
+            if (!lockConfiguration.getLockAtMostUntil().isAfter(ClockProvider.now())) {
+                knownHeldLocks.released(lockConfiguration.getName());
+                return Optional.empty();
+            }
+            try {
+                Stat stat = client.setData()
+                        .withVersion(version)
+                        .forPath(nodePath, serialize(newConfiguration.getLockAtMostUntil()));
+                return Optional.of(new CuratorLock(nodePath, client, newConfiguration, stat.getVersion(), knownHeldLocks));
+            } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+                logger.trace("Node value can not be set, lock must have been taken over by a parallel process");
+                knownHeldLocks.released(lockConfiguration.getName());
+                return Optional.empty();
+            } catch (Exception e) {
+                throw new LockException("Can not extend lock", e);
+            }
+        }
+    }
+
+    private static final class AsyncCuratorLock extends AbstractAsyncSimpleLock {
+        private final String nodePath;
+        private final CuratorFramework client;
+        private final int version;
+        private final KnownHeldLocks knownHeldLocks;
+
+        private AsyncCuratorLock(String nodePath, CuratorFramework client, LockConfiguration lockConfiguration, int version,
+                                 KnownHeldLocks knownHeldLocks) {
+            super(lockConfiguration);
+            this.nodePath = nodePath;
+            this.client = client;
+            this.version = version;
+            this.knownHeldLocks = knownHeldLocks;
+        }
+
+        @Override
+        protected CompletionStage<Void> doUnlockAsync() {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            result.whenComplete((done, ex) -> knownHeldLocks.released(lockConfiguration.getName()));
+            inBackground(result, "Can not remove node", callback -> client.setData()
+                            .withVersion(version)
+                            .inBackground(callback)
+                            .forPath(nodePath, serialize(lockConfiguration.getUnlockTime())),
+                    (code, event) -> {
+                        if (code == KeeperException.Code.BADVERSION || code == KeeperException.Code.NONODE) {
+                            logger.debug("Lock {} has been taken over by another process, not releasing it", nodePath);
+                            result.complete(null);
+                        } else if (code == KeeperException.Code.OK) {
+                            result.complete(null);
+                        } else {
+                            result.completeExceptionally(
+                                    new LockException("Can not remove node", KeeperException.create(code, nodePath)));
+                        }
+                    });
+            return result;
+        }
+
+        @Override
+        protected CompletionStage<Optional<AsyncSimpleLock>> doExtendAsync(LockConfiguration newConfiguration) {
+            CompletableFuture<Optional<AsyncSimpleLock>> result = new CompletableFuture<>();
+            if (!lockConfiguration.getLockAtMostUntil().isAfter(ClockProvider.now())) {
+                knownHeldLocks.released(lockConfiguration.getName());
+                result.complete(Optional.empty());
+                return result;
             }
+            inBackground(result, "Can not extend lock", callback -> client.setData()
+                            .withVersion(version)
+                            .inBackground(callback)
+                            .forPath(nodePath, serialize(newConfiguration.getLockAtMostUntil())),
+                    (code, event) -> {
+                        if (code == KeeperException.Code.OK) {
+                            result.complete(Optional.of(new AsyncCuratorLock(nodePath, client, newConfiguration,
+                                    event.getStat().getVersion(), knownHeldLocks)));
+                        } else if (code == KeeperException.Code.BADVERSION || code == KeeperException.Code.NONODE) {
+                            logger.trace("Node value can not be set, lock must have been taken over by a parallel process");
+                            knownHeldLocks.released(lockConfiguration.getName());
+                            result.complete(Optional.empty());
+                        } else {
+                            result.completeExceptionally(
+                                    new LockException("Can not extend lock", KeeperException.create(code, nodePath)));
+                        }
+                    });
+            return result;
         }
     }
 }
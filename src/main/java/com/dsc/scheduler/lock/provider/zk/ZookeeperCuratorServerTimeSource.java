@@ -0,0 +1,70 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.lock.provider.zk;
+
+import com.dsc.scheduler.lock.ServerTimeSource;
+import com.dsc.scheduler.support.LockException;
+import com.dsc.scheduler.support.NonNull;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.PathUtils;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the time of the ZooKeeper leader from the mtime of a node it writes. The
+ * leader stamps each write with its clock, in milliseconds, so every read is a
+ * write of an empty node.
+ *
+ * @author typhoon
+ **/
+public class ZookeeperCuratorServerTimeSource implements ServerTimeSource {
+    public static final String DEFAULT_PATH = "/shedlock-time";
+    private static final byte[] EMPTY = new byte[0];
+    private final String path;
+    private final CuratorFramework client;
+
+    public ZookeeperCuratorServerTimeSource(@NonNull CuratorFramework client) {
+        this(client, DEFAULT_PATH);
+    }
+
+    public ZookeeperCuratorServerTimeSource(@NonNull CuratorFramework client, @NonNull String path) {
+        this.client = requireNonNull(client);
+        this.path = PathUtils.validatePath(path);
+    }
+
+    @Override
+    @NonNull
+    public Instant serverTime() {
+        try {
+            Stat stat;
+            try {
+                stat = client.setData().forPath(path, EMPTY);
+            } catch (KeeperException.NoNodeException e) {
+                try {
+                    client.create().creatingParentContainersIfNeeded().forPath(path, EMPTY);
+                } catch (KeeperException.NodeExistsException ignored) {
+                    // created by another node
+                }
+                stat = client.setData().forPath(path, EMPTY);
+            }
+            return Instant.ofEpochMilli(stat.getMtime());
+        } catch (Exception e) {
+            throw new LockException("Can not read the ZooKeeper time", e);
+        }
+    }
+}
@@ -21,36 +21,58 @@ import com.dsc.scheduler.annotation.DcsScheduled;
 import com.dsc.scheduler.aop.DcsScheduledAnnotationBeanPostProcessor;
 import com.dsc.scheduler.aop.LockingNotSupportedException;
 import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockConfigurationTemplate;
 import com.dsc.scheduler.lock.LockingTaskExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.support.MethodInvokingRunnable;
 import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.UndeclaredThrowableException;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Variant of {@link MethodInvokingRunnable} meant to be used for processing
  * of no-arg scheduled methods. Propagates user exceptions to the caller,
  * assuming that an error strategy for Runnables is in place.
  *
+ * <p>The method is run by {@link LockingTaskExecutor#executeWithLockAsync}, if the
+ * executor acquires the lock asynchronously the runnable returns before the method
+ * has run and failures of the method are logged. Methods returning a Reactive
+ * Streams {@code Publisher} (Mono, Flux) or a {@link java.util.concurrent.CompletionStage}
+ * are run by {@link LockingTaskExecutor#executeAsyncWithLock}, the lock is held
+ * until the publisher terminates.
+ *
+ * <p>The method is bound once when the runnable is created, see
+ * {@link ScheduledMethodInvoker}, the runs call it without reflection.
+ *
  * @author Typhoon
  * @since 1.0
  * @see DcsScheduledAnnotationBeanPostProcessor
  */
 public class DcsScheduledMethodRunnable implements Runnable {
 
+	private static final Logger logger = LoggerFactory.getLogger(DcsScheduledMethodRunnable.class);
+
 	private final Object target;
 
 	private final Method method;
 
-	private  final ExtendedLockConfigurationExtractor lockConfigurationExtractor;
+	private final LockConfigurationTemplate lockConfigurationTemplate;
 
 	private LockingTaskExecutor lockingTaskExecutor;
 
 	private final DcsScheduled scheduled;
 
+	private final boolean reactive;
+
+	private final LockingTaskExecutor.TaskWithResult<Object> invoker;
+
+	private final LockingTaskExecutor.AsyncTask<Object> asyncInvoker;
+
 	private  String name;
 
 	private  String lockAtMostFor;
@@ -68,15 +90,33 @@ public class DcsScheduledMethodRunnable implements Runnable {
 	 * @param lte lte
 	 */
 	public DcsScheduledMethodRunnable(Object target, Method method, DcsScheduled scheduled, ExtendedLockConfigurationExtractor elce, LockingTaskExecutor lte) {
+		this(target, method, scheduled, elce, lte, Duration.ZERO);
+	}
+
+	/**
+	 * Create a {@code ScheduledMethodRunnable} for a method whose runs are delayed by
+	 * up to the given lock jitter on each node. The lock is then held at least for the
+	 * jitter, so a node firing late does not find the lock of a short run released
+	 * and run the method a second time.
+	 * @param target the target instance to call the method on
+	 * @param method the target method to call
+	 * @param scheduled annotation
+	 * @param elce elce
+	 * @param lte lte
+	 * @param lockJitter upper bound of the delay of the runs, zero without jitter
+	 */
+	public DcsScheduledMethodRunnable(Object target, Method method, DcsScheduled scheduled, ExtendedLockConfigurationExtractor elce, LockingTaskExecutor lte, Duration lockJitter) {
 		this.target = target;
 		this.method = method;
 		this.scheduled = scheduled;
 		this.name = scheduled.name();
 		this.lockAtMostFor = scheduled.lockAtMostFor();
 		this.lockAtLeastFor = scheduled.lockAtLeastFor();
-		this.lockConfigurationExtractor = elce;
 		this.lockingTaskExecutor = lte;
-
+		this.reactive = ReactiveResultSupport.isReactive(method);
+		this.lockConfigurationTemplate = lockConfigurationTemplate(target, method, elce, lockJitter);
+		this.invoker = ScheduledMethodInvoker.bind(target, method);
+		this.asyncInvoker = () -> ReactiveResultSupport.toCompletionStage(invoker.call());
 	}
 
 	/**
@@ -96,8 +136,37 @@ public class DcsScheduledMethodRunnable implements Runnable {
 		this.name = scheduled.name();
 		this.lockAtMostFor = scheduled.lockAtMostFor();
 		this.lockAtLeastFor = scheduled.lockAtLeastFor();
-		this.lockConfigurationExtractor = elce;
 		this.lockingTaskExecutor = lte;
+		this.reactive = ReactiveResultSupport.isReactive(this.method);
+		this.lockConfigurationTemplate = lockConfigurationTemplate(target, this.method, elce, Duration.ZERO);
+		this.invoker = ScheduledMethodInvoker.bind(target, this.method);
+		this.asyncInvoker = () -> ReactiveResultSupport.toCompletionStage(invoker.call());
+	}
+
+	/**
+	 * Checks the method and resolves its lock configuration once, the runs only
+	 * stamp the template with their start time. lockAtLeastFor is raised to the
+	 * lock jitter, a lock jitter above lockAtMostFor is rejected.
+	 */
+	private static LockConfigurationTemplate lockConfigurationTemplate(Object target, Method method,
+			ExtendedLockConfigurationExtractor lockConfigurationExtractor, Duration lockJitter) {
+		Class<?> returnType = method.getReturnType();
+		if (returnType.isPrimitive() && !void.class.equals(returnType)) {
+			throw new LockingNotSupportedException("Can not lock method returning primitive value");
+		}
+		ReflectionUtils.makeAccessible(method);
+		LockConfigurationTemplate template = lockConfigurationExtractor.getLockConfigurationTemplate(target, method)
+				.orElseThrow(() -> new IllegalArgumentException("No lock configuration for " + method));
+		if (lockJitter.compareTo(template.getLockAtMostFor()) > 0) {
+			throw new IllegalArgumentException("lockJitter " + lockJitter + " is longer than lockAtMostFor "
+					+ template.getLockAtMostFor() + " for lock '" + template.getName() + "'");
+		}
+		LockConfigurationTemplate jittered = template.withLockAtLeastFor(lockJitter);
+		if (jittered != template) {
+			logger.info("Raising lockAtLeastFor of lock '{}' from {} to its lockJitter {}", template.getName(),
+					template.getLockAtLeastFor(), lockJitter);
+		}
+		return jittered;
 	}
 
 
@@ -130,32 +199,48 @@ public class DcsScheduledMethodRunnable implements Runnable {
 		return lockAtLeastFor;
 	}
 
+	/**
+	 * Return the group whose executor runs the method.
+	 * @return group name
+	 */
+	public String getGroup() {
+		return scheduled.group();
+	}
+
 	@Override
 	public void run() {
 		try {
-			Class<?> returnType = this.method.getReturnType();
-			if (returnType.isPrimitive() && !void.class.equals(returnType)) {
-				throw new LockingNotSupportedException("Can not lock method returning primitive value");
-			}
-			ReflectionUtils.makeAccessible(this.method);
-			//todo this.method.getParameters() 参数问题
-			Optional<LockConfiguration> lockConfigurationOptional = lockConfigurationExtractor.getLockConfiguration(scheduled,this.method,this.method.getParameters());
-			LockConfiguration lockConfiguration = lockConfigurationOptional.get();
-//			LockConfiguration lockConfiguration = lockConfigurationExtractor
-//					.getLockConfiguration(invocation.getThis(), invocation.getMethod(), invocation.getArguments())
-//					.get();
+			LockConfiguration lockConfiguration = lockConfigurationTemplate.newConfiguration();
 			//todo锁定操作应该由当前业务线程完成,不需要再用线程池
-			lockingTaskExecutor.executeWithLock((LockingTaskExecutor.Task) () -> method.invoke(target), lockConfiguration);
-		} catch (InvocationTargetException ex) {
-			ReflectionUtils.rethrowRuntimeException(ex.getTargetException());
-		}
-		catch (IllegalAccessException ex) {
-			throw new UndeclaredThrowableException(ex);
+			CompletableFuture<?> result = (reactive
+					? lockingTaskExecutor.executeAsyncWithLock(asyncInvoker, lockConfiguration)
+					: lockingTaskExecutor.executeWithLockAsync(invoker, lockConfiguration))
+					.toCompletableFuture();
+			if (result.isDone()) {
+				try {
+					result.get();
+				} catch (ExecutionException ex) {
+					throw ex.getCause();
+				}
+			} else {
+				result.whenComplete((ignored, ex) -> {
+					if (ex != null) {
+						logger.error("Unexpected error occurred in scheduled task {}", this, unwrap(ex));
+					}
+				});
+			}
 		} catch (Throwable e) {
 			ReflectionUtils.rethrowRuntimeException(e);
 		}
 	}
 
+	private static Throwable unwrap(Throwable ex) {
+		if (ex instanceof CompletionException && ex.getCause() != null) {
+			return ex.getCause();
+		}
+		return ex;
+	}
+
 	@Override
 	public String toString() {
 		return this.method.getDeclaringClass().getName() + "." + this.method.getName();
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.support;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * {@link Trigger} firing a fixed offset after another one, the whole schedule of
+ * the delegate shifted by the offset. Spreads the lock attempts of the nodes
+ * running the same cron job, which would otherwise all hit the lock store in the
+ * same millisecond at every boundary.
+ *
+ * <p>
+ * The offset of a node is derived from a hash of the node and the lock name, see
+ * {@link #offsetMillis(String, String, long)}, so it is stable across restarts and
+ * the node with the lowest hash of a lock always tries first. The others usually
+ * find the lock already held when they try.
+ *
+ * @author typhoon
+ **/
+public class JitteredTrigger implements Trigger {
+    private final Trigger delegate;
+    private final long offsetMillis;
+
+    public JitteredTrigger(Trigger delegate, long offsetMillis) {
+        if (offsetMillis < 0) {
+            throw new IllegalArgumentException("Offset can not be negative, got " + offsetMillis);
+        }
+        this.delegate = delegate;
+        this.offsetMillis = offsetMillis;
+    }
+
+    /**
+     * Offset of a node for a lock, from 0 inclusive to maxJitterMillis exclusive.
+     * Rendezvous hashing, a node gets the same offset for a lock on every start
+     * and the offsets of the nodes are spread evenly.
+     *
+     * @param nodeId identity of the node, the hostname
+     * @param lockName name of the lock of the job
+     * @param maxJitterMillis upper bound of the offset, 0 disables jitter
+     * @return offset in milliseconds
+     */
+    public static long offsetMillis(String nodeId, String lockName, long maxJitterMillis) {
+        if (maxJitterMillis <= 0) {
+            return 0;
+        }
+        long hash = mix(fnv1a(nodeId + '\u0000' + lockName));
+        // 53 high bits, a fraction in [0, 1)
+        double score = (hash >>> 11) * 0x1.0p-53;
+        return (long) (score * maxJitterMillis);
+    }
+
+    @Override
+    public Date nextExecutionTime(TriggerContext triggerContext) {
+        Date next = delegate.nextExecutionTime(new ShiftedTriggerContext(triggerContext, offsetMillis));
+        return next == null ? null : new Date(next.getTime() + offsetMillis);
+    }
+
+    public long getOffsetMillis() {
+        return offsetMillis;
+    }
+
+    @Override
+    public String toString() {
+        return delegate + " + " + offsetMillis + "ms";
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** Finalizer of MurmurHash3, FNV alone leaves the high bits of similar names close. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /** Context of the delegate, the times of the runs and the clock moved back by the offset. */
+    private static final class ShiftedTriggerContext implements TriggerContext {
+        private final TriggerContext context;
+        private final long offsetMillis;
+
+        private ShiftedTriggerContext(TriggerContext context, long offsetMillis) {
+            this.context = context;
+            this.offsetMillis = offsetMillis;
+        }
+
+        @Override
+        public Clock getClock() {
+            return Clock.offset(context.getClock(), Duration.ofMillis(-offsetMillis));
+        }
+
+        @Override
+        public Date lastScheduledExecutionTime() {
+            return shift(context.lastScheduledExecutionTime());
+        }
+
+        @Override
+        public Date lastActualExecutionTime() {
+            return shift(context.lastActualExecutionTime());
+        }
+
+        @Override
+        public Date lastCompletionTime() {
+            return shift(context.lastCompletionTime());
+        }
+
+        private Date shift(Date date) {
+            return date == null ? null : new Date(date.getTime() - offsetMillis);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.support;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Turns the result of a scheduled method which only describes the work, a
+ * Reactive Streams {@code Publisher} like Mono or Flux or a {@link CompletionStage},
+ * into a stage completed once the work has finished.
+ *
+ * <p>
+ * The publisher is subscribed to through a dynamic proxy of {@code Subscriber}, so
+ * no Reactive Streams classes are needed unless the application uses them. All
+ * elements are requested and discarded except the last one, cancelling the
+ * returned stage cancels the subscription.
+ *
+ * @author typhoon
+ **/
+final class ReactiveResultSupport {
+    private static final String PUBLISHER_CLASS = "org.reactivestreams.Publisher";
+    private static final String SUBSCRIBER_CLASS = "org.reactivestreams.Subscriber";
+    private static final String SUBSCRIPTION_CLASS = "org.reactivestreams.Subscription";
+
+    private ReactiveResultSupport() {
+    }
+
+    /**
+     * @param method scheduled method
+     * @return true if the method returns a publisher or a completion stage
+     */
+    static boolean isReactive(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return true;
+        }
+        ClassLoader classLoader = returnType.getClassLoader();
+        return ClassUtils.isPresent(PUBLISHER_CLASS, classLoader)
+                && ClassUtils.resolveClassName(PUBLISHER_CLASS, classLoader).isAssignableFrom(returnType);
+    }
+
+    /**
+     * @param result value returned by a method for which {@link #isReactive(Method)} holds
+     * @return stage completed with the last element of the publisher or the value of the stage
+     */
+    @SuppressWarnings("unchecked")
+    static CompletionStage<Object> toCompletionStage(@Nullable Object result) {
+        if (result == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (result instanceof CompletionStage) {
+            return (CompletionStage<Object>) result;
+        }
+        return subscribe(result);
+    }
+
+    private static CompletionStage<Object> subscribe(Object publisher) {
+        ClassLoader classLoader = publisher.getClass().getClassLoader();
+        Class<?> publisherClass = ClassUtils.resolveClassName(PUBLISHER_CLASS, classLoader);
+        Class<?> subscriberClass = ClassUtils.resolveClassName(SUBSCRIBER_CLASS, classLoader);
+        Class<?> subscriptionClass = ClassUtils.resolveClassName(SUBSCRIPTION_CLASS, classLoader);
+        CompletionSubscriber completion = new CompletionSubscriber(
+                ReflectionUtils.findMethod(subscriptionClass, "request", long.class),
+                ReflectionUtils.findMethod(subscriptionClass, "cancel"));
+        Object subscriber = Proxy.newProxyInstance(classLoader, new Class<?>[]{subscriberClass},
+                (proxy, method, args) -> completion.invoke(proxy, method, args));
+        ReflectionUtils.invokeMethod(
+                ReflectionUtils.findMethod(publisherClass, "subscribe", subscriberClass), publisher, subscriber);
+        return completion.result;
+    }
+
+    private static final class CompletionSubscriber {
+        private final Method request;
+        private final Method cancel;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        @Nullable
+        private volatile Object last;
+
+        private CompletionSubscriber(Method request, Method cancel) {
+            this.request = request;
+            this.cancel = cancel;
+        }
+
+        @Nullable
+        private Object invoke(Object proxy, Method method, @Nullable Object[] args) throws InvocationTargetException, IllegalAccessException {
+            switch (method.getName()) {
+                case "onSubscribe":
+                    onSubscribe(args[0]);
+                    return null;
+                case "onNext":
+                    last = args[0];
+                    return null;
+                case "onError":
+                    result.completeExceptionally((Throwable) args[0]);
+                    return null;
+                case "onComplete":
+                    result.complete(last);
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CompletionSubscriber";
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+
+        private void onSubscribe(Object subscription) throws InvocationTargetException, IllegalAccessException {
+            // cancels right away if the stage has been cancelled before the subscription
+            result.whenComplete((value, ex) -> {
+                if (result.isCancelled()) {
+                    ReflectionUtils.invokeMethod(cancel, subscription);
+                }
+            });
+            request.invoke(subscription, Long.MAX_VALUE);
+        }
+    }
+}
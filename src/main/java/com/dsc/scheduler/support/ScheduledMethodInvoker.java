@@ -0,0 +1,112 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.support;
+
+import com.dsc.scheduler.lock.LockingTaskExecutor.TaskWithResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls a no-arg scheduled method, bound once when the job is registered. The call
+ * goes through a class spun by {@link LambdaMetafactory} which invokes the method
+ * directly, so the JIT inlines it like a plain call, nothing is allocated per run
+ * and failures of the method are thrown as they are, not wrapped in an
+ * {@link InvocationTargetException}.
+ *
+ * <p>
+ * The spun class lives next to this one, so it can only call public methods of
+ * public classes visible to the class loader of this library. Other methods, e.g.
+ * of beans loaded by a child class loader, are called through reflection with the
+ * same unwrapped failures.
+ *
+ * @author typhoon
+ **/
+final class ScheduledMethodInvoker {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledMethodInvoker.class);
+
+    private ScheduledMethodInvoker() {
+    }
+
+    /**
+     * @param target instance to call the method on
+     * @param method no-arg instance method of the target, not returning a primitive value
+     * @return task calling the method and returning its result, null for void methods
+     */
+    static TaskWithResult<Object> bind(Object target, Method method) {
+        if (isBindable(method)) {
+            try {
+                return metafactory(target, method);
+            } catch (Throwable ex) {
+                logger.debug("Can not bind {}, calling it through reflection", method, ex);
+            }
+        }
+        return reflective(target, method);
+    }
+
+    static TaskWithResult<Object> reflective(Object target, Method method) {
+        return () -> {
+            try {
+                return method.invoke(target);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TaskWithResult<Object> metafactory(Object target, Method method) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> type = method.getDeclaringClass();
+        Class<?> returnType = method.getReturnType();
+        // checks the access of this class, unlike unreflect of a method made accessible
+        MethodHandle implementation = lookup.findVirtual(type, method.getName(), MethodType.methodType(returnType));
+        if (returnType == void.class) {
+            Runnable runnable = (Runnable) LambdaMetafactory.metafactory(lookup, "run",
+                    MethodType.methodType(Runnable.class, type), MethodType.methodType(void.class),
+                    implementation, MethodType.methodType(void.class)).getTarget().invoke(target);
+            return () -> {
+                runnable.run();
+                return null;
+            };
+        }
+        return (TaskWithResult<Object>) LambdaMetafactory.metafactory(lookup, "call",
+                MethodType.methodType(TaskWithResult.class, type), MethodType.methodType(Object.class),
+                implementation, MethodType.methodType(returnType)).getTarget().invoke(target);
+    }
+
+    private static boolean isBindable(Method method) {
+        Class<?> returnType = method.getReturnType();
+        return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+                && Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                && isVisible(method.getDeclaringClass())
+                && (returnType == void.class || isVisible(returnType));
+    }
+
+    /** The spun class resolves the classes of the call through the class loader of this library. */
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, ScheduledMethodInvoker.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2009 the original author or authors.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dsc.scheduler.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads running the jobs, Java 21 version using virtual threads.
+ *
+ * @author typhoon
+ **/
+final class JobThreads {
+
+    private JobThreads() {
+    }
+
+    /**
+     * @param namePrefix prefix of the thread names, followed by a counter
+     * @return factory of virtual threads
+     */
+    static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        return Thread.ofVirtual().name(namePrefix, 0).factory();
+    }
+}
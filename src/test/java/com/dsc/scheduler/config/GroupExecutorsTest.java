@@ -0,0 +1,107 @@
+package com.dsc.scheduler.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queues of the job groups, each group with a single blocked thread.
+ *
+ * @author typhoon
+ **/
+class GroupExecutorsTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final StandardEnvironment environment = new StandardEnvironment();
+    private final GroupExecutors groupExecutors = new GroupExecutors(environment, 1, group -> Executors.defaultThreadFactory());
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        groupExecutors.close();
+    }
+
+    private void block(Executor executor) {
+        executor.execute(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    void defaultGroupQueuesRunsWithoutLimit() throws InterruptedException {
+        Executor executor = groupExecutors.currentExecutor();
+        block(executor);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1_000);
+        for (int i = 0; i < 1_000; i++) {
+            executor.execute(() -> {
+                runs.incrementAndGet();
+                done.countDown();
+            });
+        }
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1_000, runs.get());
+        assertEquals(0, groupExecutors.getRejectedCount("default"));
+    }
+
+    @Test
+    void boundedGroupRejectionsArePublished() {
+        environment.getPropertySources().addFirst(new MapPropertySource("test",
+                Collections.singletonMap(GroupExecutors.PROPERTY_PREFIX + "default.queue-capacity", 1)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new GroupExecutorMetrics(groupExecutors).bindTo(registry);
+
+        Executor executor = groupExecutors.currentExecutor();
+        block(executor);
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        FunctionCounter rejected = registry.get(GroupExecutorMetrics.REJECTED_RUNS).tag("group", "default").functionCounter();
+        assertEquals(1, rejected.count());
+    }
+
+    @Test
+    void threadPerTaskGroupRunsAllTasksAtOnce() throws InterruptedException {
+        AtomicInteger threads = new AtomicInteger();
+        GroupExecutors threadPerTask = new GroupExecutors(environment, GroupExecutors.THREAD_PER_TASK, group -> task -> {
+            threads.incrementAndGet();
+            return new Thread(task);
+        });
+        Executor executor = threadPerTask.currentExecutor();
+        CountDownLatch running = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(() -> {
+                running.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        assertEquals(100, threads.get());
+
+        threadPerTask.close();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+}
@@ -0,0 +1,45 @@
+package com.dsc.scheduler.config;
+
+import com.dsc.scheduler.annotation.EnableDcsScheduling;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Metrics of the job groups in a context configured by {@link EnableDcsScheduling}.
+ *
+ * @author typhoon
+ **/
+class GroupMetricsConfigTest {
+
+    @Configuration
+    @EnableDcsScheduling(providerModel = EnableDcsScheduling.ProviderModel.DB, defaultLockAtMostFor = "10m")
+    static class SchedulingConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:group-metrics");
+        }
+    }
+
+    @Test
+    void rejectedRunsArePublishedForGroupsOfScheduler() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(SchedulingConfig.class)) {
+            assertEquals(1, context.getBeansOfType(GroupExecutorMetrics.class).size());
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            context.getBean(GroupExecutorMetrics.class).bindTo(registry);
+            context.getBean(DispatchingTaskScheduler.class).getGroupExecutors().currentExecutor();
+
+            assertNotNull(registry.find(GroupExecutorMetrics.REJECTED_RUNS).tag("group", "default").functionCounter());
+        }
+    }
+}
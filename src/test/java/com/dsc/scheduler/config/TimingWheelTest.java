@@ -0,0 +1,152 @@
+package com.dsc.scheduler.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Placement of the tasks on the levels of a {@link TimingWheel}, with a tick
+ * short enough to run through a few levels within a second.
+ *
+ * @author typhoon
+ **/
+class TimingWheelTest {
+    private static final Duration TICK = Duration.ofNanos(10_000);
+
+    private final TimingWheel wheel = new TimingWheel(TICK, "test-timing-wheel");
+
+    @AfterEach
+    void shutdown() {
+        wheel.shutdown();
+    }
+
+    /** Runs the call on the thread of the wheel, in the tick following the current one at the latest. */
+    private <T> T onWheel(Callable<T> call) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        wheel.schedule(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, System.nanoTime());
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    /** Keeps the thread of the wheel busy until released, the tasks scheduled meanwhile stay pending. */
+    private void blockWheel(CountDownLatch release) throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            blocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, System.nanoTime());
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Scheduled by a task run by the wheel, so the delay is counted from a known
+     * tick. The task is placed one tick later, with one tick less to go, both
+     * sides of each level boundary are covered by the delays.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 255, 256, 257, 65_535, 65_536, 65_537})
+    void taskFiresInItsDeadlineTick(long delayTicks) throws Exception {
+        CompletableFuture<Long> firedAt = new CompletableFuture<>();
+        long deadlineTick = onWheel(() -> {
+            long deadline = wheel.currentTick() + delayTicks;
+            wheel.schedule(() -> firedAt.complete(wheel.currentTick()), wheel.startOfTick(deadline));
+            return deadline;
+        });
+        assertEquals(deadlineTick, firedAt.get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tasksNeverFireEarly() throws Exception {
+        int tasks = 1_000;
+        CountDownLatch fired = new CountDownLatch(tasks);
+        AtomicBoolean early = new AtomicBoolean();
+        for (int i = 0; i < tasks; i++) {
+            // deadlines between ticks, rounded up to the next tick
+            long deadline = System.nanoTime() + i * 7_919L;
+            wheel.schedule(() -> {
+                if (System.nanoTime() < deadline) {
+                    early.set(true);
+                }
+                fired.countDown();
+            }, deadline);
+        }
+        assertTrue(fired.await(10, TimeUnit.SECONDS));
+        assertFalse(early.get());
+    }
+
+    @Test
+    void pastStartTimeFiresRightAway() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(fired::countDown, new Date(System.currentTimeMillis() - 1_000));
+        assertTrue(fired.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void taskCancelledBeforeBeingPlacedDoesNotRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        blockWheel(release);
+        ScheduledFuture<?> future = wheel.schedule(() -> ran.set(true), System.nanoTime() + TICK.toNanos() * 10);
+        assertTrue(future.cancel(false));
+        release.countDown();
+
+        assertEquals(0, (int) onWheel(wheel::placedCount));
+        Thread.sleep(20);
+        assertFalse(ran.get());
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void taskCancelledAfterBeingPlacedIsRemovedFromWheel() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        ScheduledFuture<?> future = wheel.schedule(() -> ran.set(true), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+        // taken from the pending queue before the probe, which is scheduled later
+        assertEquals(1, (int) onWheel(wheel::placedCount));
+
+        assertTrue(future.cancel(false));
+        assertEquals(0, (int) onWheel(wheel::placedCount));
+        Thread.sleep(300);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void shutdownCancelsPlacedAndPendingTasks() throws Exception {
+        long later = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        ScheduledFuture<?> placed = wheel.schedule(() -> { }, later);
+        assertEquals(1, (int) onWheel(wheel::placedCount));
+        blockWheel(new CountDownLatch(1));
+        ScheduledFuture<?> pending = wheel.schedule(() -> { }, later);
+
+        wheel.shutdown();
+
+        assertThrows(CancellationException.class, () -> placed.get(10, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> pending.get(10, TimeUnit.SECONDS));
+        assertThrows(TaskRejectedException.class, () -> wheel.schedule(() -> { }, later));
+    }
+}
@@ -0,0 +1,60 @@
+package com.dsc.scheduler.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thread releasing the blocking lock of an asynchronous task.
+ *
+ * @author typhoon
+ **/
+class DefaultLockingTaskExecutorTest {
+    private static final LockConfiguration LOCK = new LockConfiguration(ClockProvider.now(), "job",
+            Duration.ofSeconds(30), Duration.ZERO);
+
+    private final AtomicReference<Thread> unlockedBy = new AtomicReference<>();
+    private final LockProvider lockProvider = lockConfiguration -> Optional.of(() -> unlockedBy.set(Thread.currentThread()));
+    private final ExecutorService unlockExecutor = Executors.newSingleThreadExecutor(task -> new Thread(task, "unlock"));
+
+    @AfterEach
+    void shutdown() {
+        unlockExecutor.shutdownNow();
+    }
+
+    @Test
+    void lockOfTaskCompletingInAnotherThreadIsReleasedOnUnlockExecutor() throws Exception {
+        DefaultLockingTaskExecutor executor = new DefaultLockingTaskExecutor(lockProvider, null, () -> unlockExecutor);
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletableFuture<LockingTaskExecutor.TaskResult<String>> result =
+                executor.executeAsyncWithLock(() -> work, LOCK).toCompletableFuture();
+
+        Thread eventLoop = new Thread(() -> work.complete("done"), "event-loop");
+        eventLoop.start();
+
+        assertEquals("done", result.get(10, TimeUnit.SECONDS).getResult());
+        assertNotNull(unlockedBy.get());
+        assertEquals("unlock", unlockedBy.get().getName());
+    }
+
+    @Test
+    void lockOfTaskCompletedBeforeReturningIsReleasedInCallingThread() throws Exception {
+        DefaultLockingTaskExecutor executor = new DefaultLockingTaskExecutor(lockProvider, null, () -> unlockExecutor);
+        CompletableFuture<LockingTaskExecutor.TaskResult<String>> result =
+                executor.executeAsyncWithLock(() -> CompletableFuture.completedFuture("done"), LOCK).toCompletableFuture();
+
+        assertTrue(result.isDone());
+        assertEquals(Thread.currentThread(), unlockedBy.get());
+    }
+}
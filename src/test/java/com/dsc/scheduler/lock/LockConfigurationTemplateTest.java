@@ -0,0 +1,37 @@
+package com.dsc.scheduler.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Least lock time of a job raised to the delay of its runs.
+ *
+ * @author typhoon
+ **/
+class LockConfigurationTemplateTest {
+    private final LockConfigurationTemplate template =
+            new LockConfigurationTemplate("job", Duration.ofMinutes(10), Duration.ofSeconds(1));
+
+    @Test
+    void shorterLockAtLeastForIsRaised() {
+        LockConfigurationTemplate raised = template.withLockAtLeastFor(Duration.ofSeconds(2));
+        assertEquals(Duration.ofSeconds(2), raised.getLockAtLeastFor());
+        assertEquals(Duration.ofSeconds(2), raised.newConfiguration().getLockAtLeastFor());
+        assertEquals(Duration.ofMinutes(10), raised.getLockAtMostFor());
+    }
+
+    @Test
+    void longerLockAtLeastForIsKept() {
+        assertSame(template, template.withLockAtLeastFor(Duration.ofMillis(500)));
+    }
+
+    @Test
+    void minimumAboveLockAtMostForIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> template.withLockAtLeastFor(Duration.ofMinutes(11)));
+    }
+}
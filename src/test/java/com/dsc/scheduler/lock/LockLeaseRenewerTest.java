@@ -0,0 +1,94 @@
+package com.dsc.scheduler.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Renewals of locks whose store calls hang or succeed.
+ *
+ * @author typhoon
+ **/
+class LockLeaseRenewerTest {
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMillis(300);
+
+    private final LockLeaseRenewer renewer = new LockLeaseRenewer(LockLeaseRenewer.DEFAULT_RENEWAL_FRACTION, 2);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        renewer.close();
+    }
+
+    private static LockConfiguration lockConfiguration(String name) {
+        return new LockConfiguration(ClockProvider.now(), name, LOCK_AT_MOST_FOR, Duration.ZERO);
+    }
+
+    /** Lock whose extension waits for the store until it is released or interrupted. */
+    private final class HangingLock implements SimpleLock {
+        private final AtomicInteger interrupted = new AtomicInteger();
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", e);
+            }
+            return Optional.of(this);
+        }
+    }
+
+    private static final class CountingLock implements SimpleLock {
+        private final AtomicInteger extended = new AtomicInteger();
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            extended.incrementAndGet();
+            return Optional.of(this);
+        }
+    }
+
+    @Test
+    void hangingRenewalDoesNotDelayOtherLocks() throws InterruptedException {
+        HangingLock hanging = new HangingLock();
+        CountingLock counting = new CountingLock();
+        renewer.watch(hanging, lockConfiguration("hanging"));
+        renewer.watch(counting, lockConfiguration("counting"));
+
+        Thread.sleep(LOCK_AT_MOST_FOR.toMillis() * 2);
+
+        // a renewal every 100ms, the hanging lock blocks one renewal thread at most
+        assertTrue(counting.extended.get() >= 4, "renewed " + counting.extended.get() + " times");
+    }
+
+    @Test
+    void renewalRunningForAPeriodIsInterrupted() throws InterruptedException {
+        HangingLock hanging = new HangingLock();
+        renewer.watch(hanging, lockConfiguration("hanging"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hanging.interrupted.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(hanging.interrupted.get() >= 2, "interrupted " + hanging.interrupted.get() + " times");
+    }
+}
@@ -0,0 +1,89 @@
+package com.dsc.scheduler.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asynchronous tasks run by a {@link LockingTaskExecutor} implementing only the
+ * blocking methods, like one supplied by an application.
+ *
+ * @author typhoon
+ **/
+class LockingTaskExecutorTest {
+    private static final LockConfiguration LOCK = new LockConfiguration(ClockProvider.now(), "job",
+            Duration.ofSeconds(30), Duration.ZERO);
+
+    private final AtomicBoolean locked = new AtomicBoolean();
+
+    private final LockingTaskExecutor executor = new LockingTaskExecutor() {
+        @Override
+        public void executeWithLock(Runnable task, LockConfiguration lockConfig) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void executeWithLock(Task task, LockConfiguration lockConfig) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> TaskResult<T> executeWithLock(TaskWithResult<T> task, LockConfiguration lockConfig) throws Throwable {
+            locked.set(true);
+            try {
+                return TaskResult.result(task.call());
+            } finally {
+                locked.set(false);
+            }
+        }
+    };
+
+    @Test
+    void lockIsHeldUntilTaskStageCompletes() throws Exception {
+        AtomicBoolean lockedWhenCompleted = new AtomicBoolean();
+        CompletableFuture<String> work = new CompletableFuture<>();
+        new Thread(() -> {
+            sleep();
+            lockedWhenCompleted.set(locked.get());
+            work.complete("done");
+        }).start();
+
+        CompletableFuture<LockingTaskExecutor.TaskResult<String>> result =
+                executor.executeAsyncWithLock(() -> work, LOCK).toCompletableFuture();
+
+        assertEquals("done", result.get().getResult());
+        assertTrue(lockedWhenCompleted.get());
+        assertFalse(locked.get());
+    }
+
+    @Test
+    void failureOfTaskStageIsPropagatedUnwrapped() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        CompletableFuture<String> work = new CompletableFuture<>();
+        work.completeExceptionally(failure);
+
+        CompletableFuture<LockingTaskExecutor.TaskResult<String>> result =
+                executor.executeAsyncWithLock(() -> work, LOCK).toCompletableFuture();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertSame(failure, thrown.getCause());
+        assertFalse(locked.get());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Saturation of the threads of {@link AsyncLockProviderAdapter} by a lock store
+ * which does not answer the locks named "slow".
+ *
+ * @author typhoon
+ **/
+class AsyncLockProviderAdapterTest {
+    private final CountDownLatch storeAnswers = new CountDownLatch(1);
+    private final AtomicReference<Thread> unlockedBy = new AtomicReference<>();
+
+    private static LockConfiguration lockConfiguration(String name) {
+        return new LockConfiguration(ClockProvider.now(), name, Duration.ofSeconds(30), Duration.ZERO);
+    }
+
+    private Optional<SimpleLock> lock(LockConfiguration lockConfiguration) {
+        if ("slow".equals(lockConfiguration.getName())) {
+            try {
+                storeAnswers.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Optional.of(() -> unlockedBy.set(Thread.currentThread()));
+    }
+
+    @Test
+    void attemptIsSkippedWhenQueueIsFull() throws Exception {
+        try (AsyncLockProviderAdapter adapter = new AsyncLockProviderAdapter(this::lock, 1, 1)) {
+            CompletableFuture<Optional<AsyncSimpleLock>> running = adapter.lockAsync(lockConfiguration("slow")).toCompletableFuture();
+            awaitTaken(adapter);
+            CompletableFuture<Optional<AsyncSimpleLock>> queued = adapter.lockAsync(lockConfiguration("job")).toCompletableFuture();
+
+            CompletableFuture<Optional<AsyncSimpleLock>> skipped = adapter.lockAsync(lockConfiguration("job")).toCompletableFuture();
+            assertTrue(skipped.isDone());
+            assertFalse(skipped.get().isPresent());
+
+            storeAnswers.countDown();
+            assertTrue(running.get(10, TimeUnit.SECONDS).isPresent());
+            assertTrue(queued.get(10, TimeUnit.SECONDS).isPresent());
+        }
+    }
+
+    @Test
+    void unlockRunsInCallerWhenQueueIsFull() throws Exception {
+        try (AsyncLockProviderAdapter adapter = new AsyncLockProviderAdapter(this::lock, 1, 1)) {
+            AsyncSimpleLock lock = adapter.lockAsync(lockConfiguration("job")).toCompletableFuture()
+                    .get(10, TimeUnit.SECONDS).get();
+            adapter.lockAsync(lockConfiguration("slow"));
+            awaitTaken(adapter);
+            adapter.lockAsync(lockConfiguration("slow"));
+
+            lock.unlockAsync().toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertEquals(Thread.currentThread(), unlockedBy.get());
+            storeAnswers.countDown();
+        }
+    }
+
+    private static void awaitTaken(AsyncLockProviderAdapter adapter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (adapter.getQueuedCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dsc.scheduler.lock.provider;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Job locks granted by the leader, over a store whose leader lock can be lost.
+ *
+ * @author typhoon
+ **/
+class LeaderElectionLockProviderTest {
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private volatile boolean leaderLockValid = true;
+    private final LockProvider store = lockConfiguration -> Optional.of(new SimpleLock() {
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            return leaderLockValid ? Optional.of(this) : Optional.empty();
+        }
+    });
+    private final LeaderElectionLockProvider provider = new LeaderElectionLockProvider(store, LEASE);
+
+    @AfterEach
+    void close() {
+        provider.close();
+    }
+
+    private Optional<SimpleLock> lock(String name) {
+        return provider.lock(new LockConfiguration(ClockProvider.now(), name, Duration.ofMinutes(1), Duration.ZERO));
+    }
+
+    @Test
+    void runningJobIsNotGrantedAgain() {
+        Optional<SimpleLock> first = lock("job");
+        assertTrue(first.isPresent());
+        assertFalse(lock("job").isPresent());
+        assertTrue(lock("other").isPresent());
+
+        first.get().unlock();
+        first.get().unlock();
+        Optional<SimpleLock> second = lock("job");
+        assertTrue(second.isPresent());
+        assertFalse(lock("job").isPresent());
+    }
+
+    @Test
+    void grantedLockIsExtendedWhileLeader() {
+        SimpleLock lock = lock("job").get();
+        assertTrue(lock.extend(Duration.ofMinutes(1), Duration.ZERO).isPresent());
+        lock.unlock();
+        assertFalse(lock.extend(Duration.ofMinutes(1), Duration.ZERO).isPresent());
+    }
+
+    @Test
+    void grantedLockIsNotExtendedAfterLeadershipIsLost() {
+        SimpleLock lock = lock("job").get();
+        leaderLockValid = false;
+        provider.heartbeat();
+
+        assertFalse(provider.isLeader());
+        assertFalse(lock.extend(Duration.ofMinutes(1), Duration.ZERO).isPresent());
+    }
+}
@@ -0,0 +1,161 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the MERGE based database time dialects against an embedded database. Each
+ * node is a provider of its own with its own locked_by value.
+ *
+ * @author typhoon
+ **/
+abstract class AbstractServerTimeLockProviderTest {
+    static final String DDL = "CREATE TABLE shedlock(name VARCHAR(64) NOT NULL, lock_until TIMESTAMP(3) NOT NULL, "
+            + "locked_at TIMESTAMP(3) NOT NULL, locked_by VARCHAR(255) NOT NULL, PRIMARY KEY (name))";
+    static final String LOCK_NAME = "job";
+    static final Duration LOCK_AT_MOST_FOR = Duration.ofSeconds(30);
+
+    JdbcTemplate jdbcTemplate;
+
+    abstract DataSource dataSource();
+
+    abstract Class<? extends SqlStatementsSource> statementsSourceType();
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate = new JdbcTemplate(dataSource());
+        jdbcTemplate.execute(DDL);
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("DROP TABLE shedlock");
+    }
+
+    JdbcTemplateLockProvider.Configuration configuration(String node) {
+        return JdbcTemplateLockProvider.Configuration.builder()
+                .withJdbcTemplate(jdbcTemplate)
+                .withLockedByValue(node)
+                .usingDbTime()
+                .build();
+    }
+
+    JdbcTemplateLockProvider node(String node) {
+        return new JdbcTemplateLockProvider(configuration(node));
+    }
+
+    static LockConfiguration lockConfiguration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return new LockConfiguration(ClockProvider.now(), LOCK_NAME, lockAtMostFor, lockAtLeastFor);
+    }
+
+    static Optional<SimpleLock> lock(JdbcTemplateLockProvider node) {
+        return node.lock(lockConfiguration(LOCK_AT_MOST_FOR, Duration.ZERO));
+    }
+
+    Timestamp lockUntil() {
+        return jdbcTemplate.queryForObject("SELECT lock_until FROM shedlock WHERE name = ?", Timestamp.class, LOCK_NAME);
+    }
+
+    String lockedBy() {
+        return jdbcTemplate.queryForObject("SELECT locked_by FROM shedlock WHERE name = ?", String.class, LOCK_NAME);
+    }
+
+    @Test
+    void usesMergeDialect() {
+        assertInstanceOf(statementsSourceType(), SqlStatementsSource.create(configuration("a")));
+    }
+
+    @Test
+    void firstAttemptInsertsRecord() {
+        assertTrue(lock(node("a")).isPresent());
+        assertEquals("a", lockedBy());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM shedlock", Integer.class));
+    }
+
+    @Test
+    void provisionInsertsMissingRecordsOnly() {
+        JdbcTemplateLockProvider a = node("a");
+        assertTrue(lock(a).isPresent());
+        a.provision(Arrays.asList(LOCK_NAME, "other"));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM shedlock", Integer.class));
+        assertFalse(lock(node("b")).isPresent(), "provisioning must not release a held lock");
+        assertTrue(node("b").lock(new LockConfiguration(ClockProvider.now(), "other", LOCK_AT_MOST_FOR, Duration.ZERO))
+                .isPresent());
+    }
+
+    @Test
+    void heldLockIsNotAcquiredByOtherNode() {
+        assertTrue(lock(node("a")).isPresent());
+        assertFalse(lock(node("b")).isPresent());
+        assertEquals("a", lockedBy());
+    }
+
+    @Test
+    void unlockedLockIsAcquiredByOtherNode() {
+        SimpleLock lock = lock(node("a")).get();
+        lock.unlock();
+        assertTrue(lock(node("b")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void unlockOfOtherNodeDoesNotReleaseLock() throws InterruptedException {
+        SimpleLock expired = node("a").lock(lockConfiguration(Duration.ofMillis(100), Duration.ZERO)).get();
+        Thread.sleep(200);
+        assertTrue(lock(node("b")).isPresent());
+        expired.unlock();
+        assertFalse(lock(node("c")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void expiredLockIsTakenOver() throws InterruptedException {
+        assertTrue(node("a").lock(lockConfiguration(Duration.ofMillis(100), Duration.ZERO)).isPresent());
+        Thread.sleep(200);
+        assertTrue(lock(node("b")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void lockIsKeptForLockAtLeastFor() throws InterruptedException {
+        SimpleLock lock = node("a").lock(lockConfiguration(LOCK_AT_MOST_FOR, Duration.ofMillis(300))).get();
+        lock.unlock();
+        assertFalse(lock(node("b")).isPresent());
+        Thread.sleep(400);
+        assertTrue(lock(node("b")).isPresent());
+    }
+
+    @Test
+    void extendMovesLockUntil() {
+        SimpleLock lock = node("a").lock(lockConfiguration(Duration.ofSeconds(5), Duration.ZERO)).get();
+        Timestamp before = lockUntil();
+        Optional<SimpleLock> extended = lock.extend(Duration.ofMinutes(5), Duration.ZERO);
+        assertTrue(extended.isPresent());
+        assertTrue(lockUntil().getTime() - before.getTime() > Duration.ofMinutes(4).toMillis());
+        extended.get().unlock();
+        assertTrue(lock(node("b")).isPresent());
+    }
+
+    @Test
+    void expiredLockCanNotBeExtended() throws InterruptedException {
+        SimpleLock lock = node("a").lock(lockConfiguration(Duration.ofMillis(100), Duration.ZERO)).get();
+        Thread.sleep(200);
+        assertFalse(lock.extend(LOCK_AT_MOST_FOR, Duration.ZERO).isPresent());
+    }
+}
@@ -0,0 +1,143 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for MySQL running the lock statements of {@link MySqlServerTimeStatementsSource}
+ * with the update counts of the server: the upsert counts 1 for an inserted
+ * record, 2 for a lock taken over and 0 for a held lock left unchanged, or 1 if
+ * the connections report found rows.
+ *
+ * @author typhoon
+ **/
+final class FakeMySqlDataSource {
+    private final Map<String, Long> lockUntil = new ConcurrentHashMap<>();
+    private final Map<String, String> lockedBy = new ConcurrentHashMap<>();
+    private final boolean foundRows;
+
+    FakeMySqlDataSource(boolean foundRows) {
+        this.foundRows = foundRows;
+    }
+
+    String lockedBy(String name) {
+        return lockedBy.get(name);
+    }
+
+    DataSource dataSource() {
+        return proxy(DataSource.class, (proxy, method, args) ->
+                "getConnection".equals(method.getName()) ? connection() : defaultValue(method.getReturnType()));
+    }
+
+    private Connection connection() {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getAutoCommit":
+                    return true;
+                case "prepareStatement":
+                    return statement((String) args[0]);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private PreparedStatement statement(String sql) {
+        Map<Integer, Object> params = new HashMap<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length >= 2) {
+                params.put((Integer) args[0], args[1]);
+                return null;
+            }
+            if ("executeUpdate".equals(method.getName())) {
+                return execute(sql, params);
+            }
+            if ("executeQuery".equals(method.getName())) {
+                return query((String) params.get(1));
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * The name is the first parameter of the upsert and the lock time the second, the
+     * unlock statement binds lockAtLeastFor first.
+     */
+    private synchronized int execute(String sql, Map<Integer, Object> params) {
+        long now = System.currentTimeMillis();
+        if (sql.contains("ON DUPLICATE KEY UPDATE")) {
+            String name = (String) params.get(1);
+            long until = now + (Long) params.get(2) / 1000;
+            String by = (String) params.get(3);
+            Long current = lockUntil.get(name);
+            if (current == null) {
+                lockUntil.put(name, until);
+                lockedBy.put(name, by);
+                return 1;
+            }
+            if (current <= now) {
+                lockUntil.put(name, until);
+                lockedBy.put(name, by);
+                return 2;
+            }
+            return foundRows ? 1 : 0;
+        }
+        if (sql.startsWith("UPDATE") && sql.contains("lock_until = IF")) {
+            String name = (String) params.get(params.size() - 1);
+            String by = (String) params.get(params.size());
+            if (!by.equals(lockedBy.get(name))) {
+                return 0;
+            }
+            lockUntil.put(name, now);
+            return 1;
+        }
+        throw new UnsupportedOperationException(sql);
+    }
+
+    /**
+     * Row of the lock_until statement: lock_until and the current time of the server.
+     */
+    private ResultSet query(String name) {
+        Long until = lockUntil.get(name);
+        long now = System.currentTimeMillis();
+        boolean[] read = {until == null};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    boolean next = !read[0];
+                    read[0] = true;
+                    return next;
+                case "getTimestamp":
+                    return new Timestamp((Integer) args[0] == 1 ? until : now);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeMySqlDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
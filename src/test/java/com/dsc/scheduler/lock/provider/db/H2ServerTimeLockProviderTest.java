@@ -0,0 +1,21 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * @author typhoon
+ **/
+class H2ServerTimeLockProviderTest extends AbstractServerTimeLockProviderTest {
+
+    @Override
+    DataSource dataSource() {
+        return new DriverManagerDataSource("jdbc:h2:mem:shedlock;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @Override
+    Class<? extends SqlStatementsSource> statementsSourceType() {
+        return H2ServerTimeStatementsSource.class;
+    }
+}
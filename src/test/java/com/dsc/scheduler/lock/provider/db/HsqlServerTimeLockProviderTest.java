@@ -0,0 +1,21 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * @author typhoon
+ **/
+class HsqlServerTimeLockProviderTest extends AbstractServerTimeLockProviderTest {
+
+    @Override
+    DataSource dataSource() {
+        return new DriverManagerDataSource("jdbc:hsqldb:mem:shedlock", "sa", "");
+    }
+
+    @Override
+    Class<? extends SqlStatementsSource> statementsSourceType() {
+        return HsqlServerTimeStatementsSource.class;
+    }
+}
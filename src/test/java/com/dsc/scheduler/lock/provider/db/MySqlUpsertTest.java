@@ -0,0 +1,67 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The single statement MySQL acquisition under contention, with connections
+ * reporting affected rows and with connections reporting found rows.
+ *
+ * @author typhoon
+ **/
+class MySqlUpsertTest {
+    private static final String LOCK_NAME = "job";
+
+    private static JdbcTemplateLockProvider node(FakeMySqlDataSource mySql, String node) {
+        return new JdbcTemplateLockProvider(JdbcTemplateLockProvider.Configuration.builder()
+                .withJdbcTemplate(new JdbcTemplate(mySql.dataSource()))
+                .withDatabaseProduct(DatabaseProduct.MY_SQL)
+                .withLockedByValue(node)
+                .usingDbTime()
+                .usingAutoCommit()
+                .usingMySqlUpsert()
+                .build());
+    }
+
+    private static Optional<SimpleLock> lock(JdbcTemplateLockProvider node) {
+        return node.lock(new LockConfiguration(ClockProvider.now(), LOCK_NAME, Duration.ofSeconds(30), Duration.ZERO));
+    }
+
+    @Test
+    void heldLockIsNotAcquiredWithAffectedRows() {
+        FakeMySqlDataSource mySql = new FakeMySqlDataSource(false);
+        JdbcTemplateLockProvider a = node(mySql, "a");
+        JdbcTemplateLockProvider b = node(mySql, "b");
+        a.checkStatements();
+
+        SimpleLock lock = lock(a).get();
+        assertFalse(lock(b).isPresent());
+        assertEquals("a", mySql.lockedBy(LOCK_NAME));
+
+        lock.unlock();
+        assertTrue(lock(node(mySql, "b")).isPresent());
+        assertEquals("b", mySql.lockedBy(LOCK_NAME));
+    }
+
+    @Test
+    void foundRowsAreRejected() {
+        FakeMySqlDataSource mySql = new FakeMySqlDataSource(true);
+        JdbcTemplateLockProvider a = node(mySql, "a");
+        JdbcTemplateLockProvider b = node(mySql, "b");
+
+        assertThrows(IllegalStateException.class, a::checkStatements);
+        assertThrows(IllegalStateException.class, () -> lock(b));
+        assertEquals(null, mySql.lockedBy(LOCK_NAME));
+    }
+}
@@ -0,0 +1,166 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static com.dsc.scheduler.lock.provider.db.AbstractServerTimeLockProviderTest.DDL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link R2dbcLockProvider} against r2dbc-h2, with the application time and
+ * with the H2 database time dialect. Each node is a provider of its own.
+ *
+ * @author typhoon
+ **/
+class R2dbcLockProviderTest {
+    private static final String LOCK_NAME = "job";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofSeconds(30);
+
+    private final ConnectionFactory connectionFactory = H2ConnectionFactory.inMemory("r2dbc");
+    private final DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+
+    @BeforeEach
+    void createTable() {
+        databaseClient.sql(DDL).then().block();
+    }
+
+    @AfterEach
+    void dropTable() {
+        databaseClient.sql("DROP TABLE shedlock").then().block();
+    }
+
+    private R2dbcLockProvider node(String node) {
+        return new R2dbcLockProvider(R2dbcLockProvider.Configuration.builder()
+                .withConnectionFactory(connectionFactory)
+                .withLockedByValue(node)
+                .build());
+    }
+
+    private R2dbcLockProvider dbTimeNode(String node) {
+        return new R2dbcLockProvider(R2dbcLockProvider.Configuration.builder()
+                .withConnectionFactory(connectionFactory)
+                .withLockedByValue(node)
+                .usingDbTime()
+                .build());
+    }
+
+    private static LockConfiguration lockConfiguration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return new LockConfiguration(ClockProvider.now(), LOCK_NAME, lockAtMostFor, lockAtLeastFor);
+    }
+
+    private static Optional<AsyncSimpleLock> lock(R2dbcLockProvider node) {
+        return node.lockAsync(lockConfiguration(LOCK_AT_MOST_FOR, Duration.ZERO)).toCompletableFuture().join();
+    }
+
+    private String lockedBy() {
+        return databaseClient.sql("SELECT locked_by FROM shedlock WHERE name = :name").bind("name", LOCK_NAME)
+                .map(row -> row.get(0, String.class)).one().block();
+    }
+
+    private LocalDateTime lockUntil() {
+        return databaseClient.sql("SELECT lock_until FROM shedlock WHERE name = :name").bind("name", LOCK_NAME)
+                .map(row -> row.get(0, LocalDateTime.class)).one().block();
+    }
+
+    @Test
+    void detectsDatabaseProduct() {
+        assertEquals(DatabaseProduct.H2, R2dbcLockProvider.Configuration.builder()
+                .withConnectionFactory(connectionFactory).build().getDatabaseProduct());
+    }
+
+    @Test
+    void firstAttemptInsertsRecord() {
+        assertTrue(lock(node("a")).isPresent());
+        assertEquals("a", lockedBy());
+    }
+
+    @Test
+    void heldLockIsNotAcquiredByOtherNode() {
+        assertTrue(lock(node("a")).isPresent());
+        assertFalse(lock(node("b")).isPresent());
+        assertEquals("a", lockedBy());
+    }
+
+    @Test
+    void unlockedLockIsAcquiredByOtherNode() {
+        lock(node("a")).get().unlockAsync().toCompletableFuture().join();
+        assertTrue(lock(node("b")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void expiredLockIsTakenOver() throws InterruptedException {
+        assertTrue(node("a").lock(lockConfiguration(Duration.ofMillis(100), Duration.ZERO)).isPresent());
+        Thread.sleep(200);
+        assertTrue(lock(node("b")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void lockIsKeptForLockAtLeastFor() throws InterruptedException {
+        SimpleLock lock = node("a").lock(lockConfiguration(LOCK_AT_MOST_FOR, Duration.ofMillis(300))).get();
+        lock.unlock();
+        assertFalse(lock(node("b")).isPresent());
+        Thread.sleep(400);
+        assertTrue(lock(node("b")).isPresent());
+    }
+
+    @Test
+    void extendMovesLockUntil() {
+        AsyncSimpleLock lock = node("a").lockAsync(lockConfiguration(Duration.ofSeconds(5), Duration.ZERO))
+                .toCompletableFuture().join().get();
+        LocalDateTime before = lockUntil();
+        Optional<AsyncSimpleLock> extended = lock.extendAsync(Duration.ofMinutes(5), Duration.ZERO)
+                .toCompletableFuture().join();
+        assertTrue(extended.isPresent());
+        assertTrue(Duration.between(before, lockUntil()).compareTo(Duration.ofMinutes(4)) > 0);
+        extended.get().unlock();
+        assertTrue(lock(node("b")).isPresent());
+    }
+
+    @Test
+    void dbTimeLockIsNotAcquiredByOtherNode() {
+        assertTrue(lock(dbTimeNode("a")).isPresent());
+        assertFalse(lock(dbTimeNode("b")).isPresent());
+        assertEquals("a", lockedBy());
+    }
+
+    @Test
+    void dbTimeLockIsAcquiredAfterUnlock() {
+        lock(dbTimeNode("a")).get().unlock();
+        assertTrue(lock(dbTimeNode("b")).isPresent());
+        assertEquals("b", lockedBy());
+    }
+
+    @Test
+    void heldLockIsRememberedByFailedNode() {
+        assertTrue(lock(node("a")).isPresent());
+        R2dbcLockProvider b = node("b");
+        assertFalse(lock(b).isPresent());
+        databaseClient.sql("UPDATE shedlock SET lock_until = locked_at").then().block();
+        assertFalse(lock(b).isPresent(), "the remaining lock time is read after the failed attempt");
+    }
+
+    @Test
+    void dbTimeHeldLockIsRememberedByFailedNode() {
+        assertTrue(lock(dbTimeNode("a")).isPresent());
+        R2dbcLockProvider b = dbTimeNode("b");
+        assertFalse(lock(b).isPresent());
+        databaseClient.sql("UPDATE shedlock SET lock_until = locked_at").then().block();
+        assertFalse(lock(b).isPresent(), "the remaining lock time is read after the failed attempt");
+    }
+}
@@ -0,0 +1,79 @@
+package com.dsc.scheduler.lock.provider.db;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Timestamps bound by a statement compiled with a time zone.
+ *
+ * @author typhoon
+ **/
+class SqlStatementTest {
+    private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("Asia/Tokyo");
+
+    private final SqlStatement statement = SqlStatement.compile(
+            "UPDATE shedlock SET lock_until = :lockUntil WHERE name = :name AND lock_until <= :now",
+            JdbcTemplateLockProvider.Configuration.builder()
+                    .withJdbcTemplate(new JdbcTemplate())
+                    .withDatabaseProduct(DatabaseProduct.H2)
+                    .withTimeZone(TIME_ZONE)
+                    .build());
+    private final List<Calendar> calendars = new ArrayList<>();
+    private final List<Timestamp> timestamps = new ArrayList<>();
+
+    private final PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                if (method.getName().equals("setTimestamp")) {
+                    timestamps.add((Timestamp) args[1]);
+                    calendars.add((Calendar) args[2]);
+                }
+                return null;
+            });
+
+    private void bind() throws Exception {
+        statement.bind(ps, new LockConfiguration(ClockProvider.now(), "job", Duration.ofSeconds(30), Duration.ZERO));
+    }
+
+    @Test
+    void timestampsAreBoundWithCalendarOfTimeZone() throws Exception {
+        LockConfiguration lockConfiguration = new LockConfiguration(ClockProvider.now(), "job", Duration.ofSeconds(30), Duration.ZERO);
+        statement.bind(ps, lockConfiguration);
+
+        assertEquals(2, timestamps.size());
+        assertEquals(lockConfiguration.getLockAtMostUntil(), timestamps.get(0).toInstant());
+        assertEquals(TIME_ZONE, calendars.get(0).getTimeZone());
+    }
+
+    @Test
+    void calendarIsReusedWithinThread() throws Exception {
+        bind();
+        bind();
+        assertSame(calendars.get(0), calendars.get(1));
+        assertSame(calendars.get(0), calendars.get(3));
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                bind();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).join();
+        assertNotSame(calendars.get(0), calendars.get(4));
+    }
+}
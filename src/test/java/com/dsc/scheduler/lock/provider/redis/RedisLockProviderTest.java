@@ -0,0 +1,155 @@
+package com.dsc.scheduler.lock.provider.redis;
+
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the blocking and the reactive Redis lock operations against an embedded
+ * Redis server through Lettuce. Each node is a provider of its own.
+ *
+ * @author typhoon
+ **/
+class RedisLockProviderTest {
+    private static final String LOCK_NAME = "job";
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static RedisLockProvider node() {
+        return new RedisLockProvider(connectionFactory);
+    }
+
+    private static ReactiveRedisLockProvider reactiveNode() {
+        return new ReactiveRedisLockProvider(connectionFactory, connectionFactory, "default");
+    }
+
+    private static LockConfiguration lockConfiguration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return new LockConfiguration(ClockProvider.now(), LOCK_NAME, lockAtMostFor, lockAtLeastFor);
+    }
+
+    private static Optional<AsyncSimpleLock> lockAsync(ReactiveRedisLockProvider node, Duration lockAtLeastFor) {
+        return node.lockAsync(lockConfiguration(Duration.ofSeconds(30), lockAtLeastFor)).toCompletableFuture().join();
+    }
+
+    private static Optional<SimpleLock> lock(RedisLockProvider node) {
+        return node.lock(lockConfiguration(Duration.ofSeconds(30), Duration.ZERO));
+    }
+
+    private Long ttlMillis() {
+        return redisTemplate.getExpire(node().buildKey(LOCK_NAME), TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void heldLockIsNotAcquiredByOtherNode() {
+        SimpleLock lock = lock(node()).get();
+        assertFalse(lock(node()).isPresent());
+        lock.unlock();
+        assertTrue(lock(node()).isPresent());
+    }
+
+    @Test
+    void asyncLockExcludesBlockingNode() {
+        AsyncSimpleLock lock = lockAsync(reactiveNode(), Duration.ZERO).get();
+        assertFalse(lock(node()).isPresent());
+        assertFalse(lockAsync(reactiveNode(), Duration.ZERO).isPresent());
+
+        lock.unlockAsync().toCompletableFuture().join();
+        assertTrue(lock(node()).isPresent());
+    }
+
+    @Test
+    void blockingLockExcludesAsyncNode() {
+        SimpleLock lock = lock(node()).get();
+        assertFalse(lockAsync(reactiveNode(), Duration.ZERO).isPresent());
+        lock.unlock();
+        assertTrue(lockAsync(reactiveNode(), Duration.ZERO).isPresent());
+    }
+
+    @Test
+    void asyncUnlockKeepsLockAtLeastFor() throws InterruptedException {
+        lockAsync(reactiveNode(), Duration.ofMillis(300)).get().unlockAsync().toCompletableFuture().join();
+        assertFalse(lock(node()).isPresent());
+        Thread.sleep(400);
+        assertTrue(lock(node()).isPresent());
+    }
+
+    @Test
+    void asyncExtendMovesExpiration() {
+        AsyncSimpleLock lock = lockAsync(reactiveNode(), Duration.ZERO).get();
+        Optional<AsyncSimpleLock> extended = lock.extendAsync(Duration.ofMinutes(5), Duration.ZERO)
+                .toCompletableFuture().join();
+        assertTrue(extended.isPresent());
+        assertTrue(ttlMillis() > TimeUnit.MINUTES.toMillis(4));
+    }
+
+    @Test
+    void expiredLockIsNotExtended() {
+        AsyncSimpleLock lock = lockAsync(reactiveNode(), Duration.ZERO).get();
+        redisTemplate.delete(node().buildKey(LOCK_NAME));
+        assertTrue(lock(node()).isPresent());
+        assertFalse(lock.extendAsync(Duration.ofMinutes(5), Duration.ZERO).toCompletableFuture().join().isPresent());
+    }
+
+    @Test
+    void scriptsAreLoadedAgainAfterFlush() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+        assertTrue(lockAsync(reactiveNode(), Duration.ZERO).isPresent());
+
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+        assertFalse(lock(node()).isPresent());
+    }
+}
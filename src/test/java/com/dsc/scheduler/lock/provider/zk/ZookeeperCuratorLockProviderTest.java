@@ -0,0 +1,138 @@
+package com.dsc.scheduler.lock.provider.zk;
+
+import com.dsc.scheduler.lock.AsyncSimpleLock;
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the background (asynchronous) and the blocking Curator lock operations
+ * against an embedded ZooKeeper server. Each node is a provider of its own.
+ *
+ * @author typhoon
+ **/
+class ZookeeperCuratorLockProviderTest {
+    private static final String LOCK_NAME = "job";
+
+    private static TestingServer server;
+    private static CuratorFramework client;
+
+    @BeforeAll
+    static void startZookeeper() throws Exception {
+        server = new TestingServer();
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+    }
+
+    @AfterAll
+    static void stopZookeeper() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @AfterEach
+    void deleteNodes() throws Exception {
+        if (client.checkExists().forPath(ZookeeperCuratorLockProvider.DEFAULT_PATH) != null) {
+            client.delete().deletingChildrenIfNeeded().forPath(ZookeeperCuratorLockProvider.DEFAULT_PATH);
+        }
+    }
+
+    private static ZookeeperCuratorLockProvider node() {
+        return new ZookeeperCuratorLockProvider(client);
+    }
+
+    private static LockConfiguration lockConfiguration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+        return new LockConfiguration(ClockProvider.now(), LOCK_NAME, lockAtMostFor, lockAtLeastFor);
+    }
+
+    private static Optional<AsyncSimpleLock> lockAsync(ZookeeperCuratorLockProvider node, Duration lockAtMostFor) {
+        return node.lockAsync(lockConfiguration(lockAtMostFor, Duration.ZERO)).toCompletableFuture().join();
+    }
+
+    private static Optional<SimpleLock> lock(ZookeeperCuratorLockProvider node) {
+        return node.lock(lockConfiguration(Duration.ofSeconds(30), Duration.ZERO));
+    }
+
+    private static Instant lockedUntil() throws Exception {
+        byte[] data = client.getData().forPath(node().getNodePath(LOCK_NAME));
+        return Instant.parse(new String(data, UTF_8));
+    }
+
+    @Test
+    void firstAsyncAttemptCreatesNode() throws Exception {
+        assertTrue(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+        assertTrue(node().isLocked(node().getNodePath(LOCK_NAME)));
+    }
+
+    @Test
+    void asyncLockExcludesOtherNodes() {
+        AsyncSimpleLock lock = lockAsync(node(), Duration.ofSeconds(30)).get();
+        assertFalse(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+        assertFalse(lock(node()).isPresent());
+
+        lock.unlockAsync().toCompletableFuture().join();
+        assertTrue(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+    }
+
+    @Test
+    void blockingLockExcludesAsyncNode() {
+        SimpleLock lock = lock(node()).get();
+        assertFalse(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+        lock.unlock();
+        assertTrue(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+    }
+
+    @Test
+    void expiredLockIsTakenOverAsync() throws InterruptedException {
+        assertTrue(lockAsync(node(), Duration.ofMillis(100)).isPresent());
+        Thread.sleep(200);
+        assertTrue(lockAsync(node(), Duration.ofSeconds(30)).isPresent());
+    }
+
+    @Test
+    void asyncExtendMovesLockedUntil() throws Exception {
+        AsyncSimpleLock lock = lockAsync(node(), Duration.ofSeconds(5)).get();
+        Optional<AsyncSimpleLock> extended = lock.extendAsync(Duration.ofMinutes(5), Duration.ZERO)
+                .toCompletableFuture().join();
+        assertTrue(extended.isPresent());
+        assertTrue(lockedUntil().isAfter(ClockProvider.now().plus(Duration.ofMinutes(4))));
+
+        extended.get().unlockAsync().toCompletableFuture().join();
+        assertTrue(lock(node()).isPresent());
+    }
+
+    @Test
+    void lockTakenOverIsNotReleased() throws Exception {
+        AsyncSimpleLock lock = lockAsync(node(), Duration.ofMillis(100)).get();
+        Thread.sleep(200);
+        assertTrue(lock(node()).isPresent());
+
+        // the node has been written by the new holder, the versions do not match
+        lock.unlockAsync().toCompletableFuture().join();
+        assertFalse(lock(node()).isPresent(), "the lock of the new holder is kept");
+    }
+
+    @Test
+    void extendOfTakenOverLockFails() throws Exception {
+        AsyncSimpleLock lock = lockAsync(node(), Duration.ofSeconds(1)).get();
+        client.setData().forPath(node().getNodePath(LOCK_NAME),
+                ClockProvider.now().plus(Duration.ofMinutes(1)).toString().getBytes(UTF_8));
+        assertFalse(lock.extendAsync(Duration.ofMinutes(5), Duration.ZERO).toCompletableFuture().join().isPresent());
+    }
+}
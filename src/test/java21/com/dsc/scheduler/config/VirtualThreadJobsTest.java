@@ -0,0 +1,144 @@
+package com.dsc.scheduler.config;
+
+import com.dsc.scheduler.lock.ClockProvider;
+import com.dsc.scheduler.lock.DefaultLockingTaskExecutor;
+import com.dsc.scheduler.lock.LockAssert;
+import com.dsc.scheduler.lock.LockConfiguration;
+import com.dsc.scheduler.lock.LockExtender;
+import com.dsc.scheduler.lock.LockProvider;
+import com.dsc.scheduler.lock.SimpleLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Locked jobs running on virtual threads, one per run, as configured by
+ * {@link SchedulerConfig} with virtual threads. Runs on Java 21 and later only.
+ *
+ * @author typhoon
+ **/
+class VirtualThreadJobsTest {
+    private static final int JOBS = 1_000;
+
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final List<Duration> extensions = new CopyOnWriteArrayList<>();
+    private final LockProvider lockProvider = lockConfiguration -> held.add(lockConfiguration.getName())
+            ? Optional.of(new HeldLock(lockConfiguration.getName())) : Optional.empty();
+    private final DefaultLockingTaskExecutor lockingExecutor = new DefaultLockingTaskExecutor(lockProvider);
+    private final GroupExecutors groupExecutors = new GroupExecutors(new StandardEnvironment(), GroupExecutors.THREAD_PER_TASK,
+            group -> Thread.ofVirtual().name("task-" + group + "-", 0).factory());
+
+    @AfterEach
+    void close() {
+        groupExecutors.close();
+    }
+
+    private static LockConfiguration lock(String name) {
+        return new LockConfiguration(ClockProvider.now(), name, Duration.ofSeconds(30), Duration.ZERO);
+    }
+
+    private CompletableFuture<Void> run(String name, Runnable job) {
+        return CompletableFuture.runAsync(() -> lockingExecutor.executeWithLock(job, lock(name)),
+                groupExecutors.currentExecutor());
+    }
+
+    @Test
+    void lockStateIsKeptByVirtualThreadOfJob() throws Exception {
+        CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+        run("job", () -> {
+            virtual.complete(Thread.currentThread().isVirtual());
+            LockAssert.assertLocked();
+            LockExtender.extendActiveLock(Duration.ofMinutes(5), Duration.ZERO);
+            // the extended lock is the active one, it is extended again and released at the end
+            LockExtender.extendActiveLock(Duration.ofMinutes(10), Duration.ZERO);
+            LockAssert.assertLocked();
+        }).get(10, TimeUnit.SECONDS);
+
+        assertTrue(virtual.get());
+        assertEquals(List.of(Duration.ofMinutes(5), Duration.ofMinutes(10)), extensions);
+        assertTrue(held.isEmpty());
+        assertThrows(IllegalStateException.class, LockAssert::assertLocked);
+    }
+
+    @Test
+    void lockStateDoesNotLeakBetweenJobsBlockedAtOnce() throws Exception {
+        CountDownLatch allRunning = new CountDownLatch(JOBS);
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (int i = 0; i < JOBS; i++) {
+            String name = "job-" + i;
+            runs.add(run(name, () -> {
+                allRunning.countDown();
+                try {
+                    // every job is blocked at the same time, each on a thread of its own
+                    assertTrue(allRunning.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                LockAssert.assertLocked();
+                LockExtender.extendActiveLock(Duration.ofMinutes(1), Duration.ZERO);
+                assertTrue(held.contains(name));
+            }));
+        }
+        CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+        assertTrue(held.isEmpty());
+        assertEquals(JOBS, extensions.size());
+    }
+
+    @Test
+    void runningJobIsNotStartedTwice() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> first = run("job", () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> secondRan = new CompletableFuture<>();
+        run("job", () -> secondRan.complete(true)).get(10, TimeUnit.SECONDS);
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+
+        assertFalse(secondRan.isDone());
+    }
+
+    private final class HeldLock implements SimpleLock {
+        private final String name;
+
+        private HeldLock(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void unlock() {
+            held.remove(name);
+        }
+
+        @Override
+        public Optional<SimpleLock> extend(Duration lockAtMostFor, Duration lockAtLeastFor) {
+            extensions.add(lockAtMostFor);
+            return Optional.of(new HeldLock(name));
+        }
+    }
+}